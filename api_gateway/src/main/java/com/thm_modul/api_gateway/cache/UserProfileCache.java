@@ -0,0 +1,117 @@
+package com.thm_modul.api_gateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-based cache of user profiles as returned by the login service
+ * Profiles almost never change, so /me, /users/profile and /users/{id} are served from here
+ * and only a miss or an expired entry goes to the login service
+ */
+@Slf4j
+@Component
+public class UserProfileCache {
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<Integer, CachedProfile> entries;
+
+    public UserProfileCache(
+            @Value("${app.profile-cache.max-entries:10000}") int maxEntries,
+            @Value("${app.profile-cache.ttl-ms:300000}") long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+
+        // Access-ordered map evicting the least recently used profile once the bound is reached
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedProfile> eldest) {
+                return size() > UserProfileCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Cached profile for the user, or null if absent or expired
+     */
+    public CachedProfile get(Integer userId) {
+        synchronized (entries) {
+            CachedProfile cached = entries.get(userId);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(userId);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Store a profile (userId, username, email) and derive its ETags
+     */
+    public CachedProfile put(Integer userId, Map<String, Object> profile) {
+        Map<String, Object> publicProfile = Map.of(
+                "userId", profile.get("userId"),
+                "username", profile.get("username")
+                // Email is not included for privacy
+        );
+
+        CachedProfile cached = new CachedProfile(
+                profile,
+                publicProfile,
+                etagOf(profile.get("userId"), profile.get("username"), profile.get("email")),
+                etagOf(profile.get("userId"), profile.get("username")),
+                System.currentTimeMillis() + ttlMs
+        );
+
+        synchronized (entries) {
+            entries.put(userId, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Drop a user's profile, e.g. after the account changed
+     */
+    public void evict(Integer userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Strong ETag over the given representation fields
+     */
+    public static String etagOf(Object... fields) {
+        StringBuilder content = new StringBuilder();
+        for (Object field : fields) {
+            content.append(field).append('\u0000');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Cached profile with its full and public representations and their ETags
+     */
+    public record CachedProfile(
+            Map<String, Object> profile,
+            Map<String, Object> publicProfile,
+            String etag,
+            String publicEtag,
+            long expiresAt
+    ) {}
+}
@@ -0,0 +1,76 @@
+package com.thm_modul.api_gateway.compression;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of already-compressed response bodies, bounded by total compressed bytes
+ * Keyed by body digest, so a byte-identical response is only compressed again once it was evicted
+ * A max-bytes of 0 disables the cache (and the digest in front of it)
+ */
+@Component
+public class CompressedBodyCache {
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+
+    public CompressedBodyCache(
+            @Value("${app.compression.cache.max-bytes:16777216}") long maxBytes,
+            @Value("${app.compression.cache.max-entry-bytes:1048576}") int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    public synchronized byte[] get(String key) {
+        byte[] compressed = entries.get(key);
+        if (compressed == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return compressed;
+    }
+
+    public synchronized void put(String key, byte[] compressed) {
+        if (compressed.length > maxEntryBytes) {
+            return;
+        }
+
+        byte[] previous = entries.put(key, compressed);
+        if (previous != null) {
+            currentBytes -= previous.length;
+        }
+        currentBytes += compressed.length;
+
+        // Evict least recently used bodies until we are back under budget
+        Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            currentBytes -= iterator.next().getValue().length;
+            iterator.remove();
+        }
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
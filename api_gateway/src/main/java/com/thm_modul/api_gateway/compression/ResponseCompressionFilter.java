@@ -0,0 +1,240 @@
+package com.thm_modul.api_gateway.compression;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Client-facing gzip compression of API responses
+ * - Only when the client accepts gzip and the body reaches the minimum size
+ * - Compression runs on a small bounded pool; the request thread is handed back via async servlet
+ *   processing, and when the pool is saturated the body simply goes out uncompressed
+ * - Compressed bytes of GET responses are cached by a digest of the body: this only saves work when
+ *   byte-identical large bodies repeat (the same public page requested again), per-user bodies rarely do
+ *   The digest costs a fraction of the deflate it may save; with app.compression.cache.max-bytes 0 it is skipped
+ * - A strong ETag is weakened on the gzip body, which is a different byte sequence than the identity one
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+    private final CompressedBodyCache bodyCache;
+    private final ThreadPoolExecutor compressionExecutor;
+
+    public ResponseCompressionFilter(
+            @Value("${app.compression.enabled:true}") boolean enabled,
+            @Value("${app.compression.min-size:1024}") int minSize,
+            @Value("${app.compression.level:6}") int level,
+            @Value("${app.compression.threads:2}") int threads,
+            @Value("${app.compression.queue-capacity:64}") int queueCapacity,
+            CompressedBodyCache bodyCache) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+        this.bodyCache = bodyCache;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.compressionExecutor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "gzip-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        // The response must vary on Accept-Encoding whether or not this one ends up compressed
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        if (!shouldCompress(wrapper) || request.isAsyncStarted()) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        byte[] body = wrapper.getContentAsByteArray();
+        String cacheKey = "GET".equals(request.getMethod()) && bodyCache.isEnabled() ? cacheKey(body) : null;
+
+        byte[] cached = cacheKey != null ? bodyCache.get(cacheKey) : null;
+        if (cached != null) {
+            writeCompressed(wrapper, response, cached);
+            return;
+        }
+
+        if (!request.isAsyncSupported()) {
+            writeCompressed(wrapper, response, compressAndCache(body, cacheKey));
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        try {
+            compressionExecutor.execute(() -> {
+                try {
+                    writeCompressed(wrapper, response, compressAndCache(body, cacheKey));
+                } catch (IOException e) {
+                    log.debug("Failed to write compressed response: {}", e.getMessage());
+                } finally {
+                    asyncContext.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Compression pool saturated - send the body as is rather than queueing behind it
+            log.debug("Compression pool saturated, sending uncompressed response for {}", request.getRequestURI());
+            try {
+                wrapper.copyBodyToResponse();
+            } finally {
+                asyncContext.complete();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compressionExecutor.shutdown();
+    }
+
+    /**
+     * Only compress successful, not yet encoded, textual bodies above the threshold
+     */
+    private boolean shouldCompress(ContentCachingResponseWrapper wrapper) {
+        if (wrapper.getContentSize() < minSize) {
+            return false;
+        }
+        if (wrapper.getStatus() < 200 || wrapper.getStatus() == 204 || wrapper.getStatus() == 304) {
+            return false;
+        }
+        if (wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+
+        String contentType = wrapper.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("application/json") || type.contains("+json") || type.startsWith("text/");
+    }
+
+    /**
+     * Digest of the body itself - ETag'd responses (profiles, /me) stay below the minimum size,
+     * so the ETag never identified a compressed body worth reusing
+     */
+    private String cacheKey(byte[] body) {
+        return DigestUtils.md5DigestAsHex(body) + ":" + body.length;
+    }
+
+    private byte[] compressAndCache(byte[] body, String cacheKey) throws IOException {
+        byte[] compressed = gzip(body);
+        if (cacheKey != null) {
+            bodyCache.put(cacheKey, compressed);
+        }
+        return compressed;
+    }
+
+    private byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(256, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private void writeCompressed(ContentCachingResponseWrapper wrapper, HttpServletResponse response,
+                                 byte[] compressed) throws IOException {
+        // Headers were already written through the wrapper, only the body, its length and the validator change
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        String etag = wrapper.getHeader(HttpHeaders.ETAG);
+        if (etag != null && !etag.startsWith("W/")) {
+            // Not byte-identical to the identity representation; If-None-Match compares weakly anyway
+            response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+        }
+        response.setContentLength(compressed.length);
+        response.getOutputStream().write(compressed);
+        response.flushBuffer();
+        wrapper.resetBuffer();
+    }
+
+    /**
+     * Parse Accept-Encoding: gzip (or *) with a non-zero quality value
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        boolean wildcard = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            boolean acceptable = quality(tokens) > 0;
+
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                return acceptable;
+            }
+            if (coding.equals("*")) {
+                wildcard = acceptable;
+            }
+        }
+        return wildcard;
+    }
+
+    private static double quality(String[] tokens) {
+        for (int i = 1; i < tokens.length; i++) {
+            String parameter = tokens[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -40,7 +40,8 @@ public class CorsConfig {
                 "X-Requested-With",
                 "Accept",
                 "Origin",
-                "Cache-Control"
+                "Cache-Control",
+                "If-None-Match"
         ));
 
         // Allow credentials (cookies, authorization headers)
@@ -52,7 +53,8 @@ public class CorsConfig {
         // Expose headers that frontend can access
         configuration.setExposedHeaders(Arrays.asList(
                 "Authorization",
-                "Content-Type"
+                "Content-Type",
+                "ETag"
         ));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -2,8 +2,10 @@ package com.thm_modul.api_gateway.config;
 
 import com.thm_modul.api_gateway.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -17,6 +19,9 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${app.gateway.secret}")
+    private String gatewaySecret;
+
     /**
      * Main security configuration for API Gateway
      * Handles authentication for all incoming requests
@@ -36,6 +41,12 @@ public class SecurityConfig {
                         .antMatchers("/api/v1/auth/login").permitAll()
                         .antMatchers("/api/v1/auth/refresh").permitAll()
                         .antMatchers("/api/v1/users/register").permitAll()
+                        .antMatchers("/api/v1/users/availability").permitAll()
+                        .antMatchers("/api/v1/users/register/status/**").permitAll()
+
+                        // Circuit breaker and instance state is internal, like the services' /internal endpoints
+                        .antMatchers("/actuator/downstreams", "/actuator/downstreams/**").access((authentication, context) ->
+                                new AuthorizationDecision(gatewaySecret.equals(context.getRequest().getHeader("X-Gateway-Secret"))))
 
                         // Health and monitoring endpoints
                         .antMatchers("/actuator/**").permitAll()
@@ -1,13 +1,22 @@
 package com.thm_modul.api_gateway.controller;
 
+import com.thm_modul.api_gateway.cache.UserProfileCache;
 import com.thm_modul.api_gateway.dto.ApiResponse;
+import com.thm_modul.api_gateway.resilience.DownstreamUnavailableException;
 import com.thm_modul.api_gateway.service.AuthService;
+import com.thm_modul.api_gateway.service.LoginThrottledException;
+import com.thm_modul.api_gateway.util.ETagUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.Enumeration;
 import java.util.Map;
 
 @Slf4j
@@ -18,16 +27,21 @@ public class AuthController {
 
     private final AuthService authService;
 
+    @Value("${app.client-ip.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
     /**
      * Public login endpoint
      * Authenticates user and returns JWT tokens via login service
      */
     @PostMapping("/login")
-    public ResponseEntity<ApiResponse<Object>> login(@Valid @RequestBody Map<String, String> loginRequest) {
+    public ResponseEntity<ApiResponse<Object>> login(
+            @Valid @RequestBody Map<String, String> loginRequest,
+            HttpServletRequest request) {
         try {
             log.info("Login request received for user: {}", loginRequest.get("usernameOrEmail"));
 
-            Object loginResponse = authService.authenticateUser(loginRequest);
+            Object loginResponse = authService.authenticateUser(loginRequest, getClientIP(request));
 
             return ResponseEntity.ok(ApiResponse.success("Login successful", loginResponse));
 
@@ -36,7 +50,16 @@ public class AuthController {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Invalid credentials"));
 
+        } catch (LoginThrottledException e) {
+            log.warn("Login throttled for user: {}", loginRequest.get("usernameOrEmail"));
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+            if (e.getRetryAfter() != null) {
+                response.header(HttpHeaders.RETRY_AFTER, e.getRetryAfter());
+            }
+            return response.body(ApiResponse.error("Too many failed login attempts, please retry later"));
+
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Login error: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Internal server error during login"));
@@ -62,6 +85,7 @@ public class AuthController {
                     .body(ApiResponse.error("Invalid refresh token"));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Token refresh error: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Internal server error during token refresh"));
@@ -73,13 +97,22 @@ public class AuthController {
      * Requires authentication via JWT
      */
     @GetMapping("/me")
-    public ResponseEntity<ApiResponse<Object>> getCurrentUser() {
+    public ResponseEntity<ApiResponse<Object>> getCurrentUser(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Object userInfo = authService.getCurrentUserInfo();
+            Map<String, Object> userInfo = authService.getCurrentUserInfo();
+            String etag = UserProfileCache.etagOf(userInfo.get("userId"), userInfo.get("username"), userInfo.get("email"));
 
-            return ResponseEntity.ok(ApiResponse.success("User information retrieved", userInfo));
+            if (ETagUtil.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .body(ApiResponse.success("User information retrieved", userInfo));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error getting current user info: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve user information"));
@@ -87,16 +120,51 @@ public class AuthController {
     }
 
     /**
-     * Logout endpoint (optional - mainly for client-side token cleanup)
-     * Since we use stateless JWT, this is primarily informational
+     * Logout endpoint
+     * Revokes the presented access token and, if sent in the body, the refresh token
      */
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<String>> logout() {
-        log.debug("Logout request received");
+    public ResponseEntity<ApiResponse<String>> logout(
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestBody(required = false) Map<String, String> logoutRequest) {
+        try {
+            log.debug("Logout request received");
+
+            String accessToken = authorizationHeader.substring(7);
+            String refreshToken = logoutRequest != null ? logoutRequest.get("refreshToken") : null;
+
+            authService.logout(accessToken, refreshToken);
+
+            return ResponseEntity.ok(ApiResponse.success("Logout successful"));
 
-        // In a stateless JWT system, logout is handled client-side by discarding the token
-        // This endpoint exists for consistency and potential future token blacklisting
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Logout error: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Internal server error during logout"));
+        }
+    }
 
-        return ResponseEntity.ok(ApiResponse.success("Logout successful - please discard your tokens"));
+    /**
+     * Address of the end client, the key of the login service's per-IP throttle
+     * Only the last X-Forwarded-For entry can be trusted: HAProxy appends the address it saw, every entry
+     * before it comes from the client. Without a trusted proxy in front the connection's address is used
+     */
+    private String getClientIP(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String last = null;
+            Enumeration<String> headers = request.getHeaders("X-Forwarded-For");
+            while (headers != null && headers.hasMoreElements()) {
+                String header = headers.nextElement();
+                String entry = header.substring(header.lastIndexOf(',') + 1).trim();
+                if (!entry.isEmpty()) {
+                    last = entry;
+                }
+            }
+            if (last != null) {
+                return last;
+            }
+        }
+        return request.getRemoteAddr();
     }
 }
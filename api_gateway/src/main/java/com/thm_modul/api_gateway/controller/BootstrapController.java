@@ -0,0 +1,57 @@
+package com.thm_modul.api_gateway.controller;
+
+import com.thm_modul.api_gateway.dto.ApiResponse;
+import com.thm_modul.api_gateway.resilience.DownstreamUnavailableException;
+import com.thm_modul.api_gateway.service.BootstrapService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/bootstrap")
+@RequiredArgsConstructor
+public class BootstrapController {
+
+    private final BootstrapService bootstrapService;
+
+    /**
+     * Everything the app needs on start in a single round trip:
+     * user info, conversations, stats and the latest messages of the top conversations
+     * Parts that fail or time out are listed under "errors", the rest is still returned
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<Object>> bootstrap(Authentication authentication) {
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            String username = (String) authentication.getCredentials();
+
+            log.debug("Bootstrap request for user ID: {}", userId);
+
+            Map<String, Object> payload = bootstrapService.bootstrap(userId, username);
+
+            Map<?, ?> errors = (Map<?, ?>) payload.get("errors");
+            if (errors.containsKey("conversations") && errors.containsKey("stats")) {
+                // Nothing from the message service - the app cannot render an inbox from this
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(ApiResponse.error("Service temporarily unavailable, please retry later"));
+            }
+
+            return ResponseEntity.ok(ApiResponse.success(
+                    errors.isEmpty() ? "Bootstrap data retrieved" : "Bootstrap data partially retrieved", payload));
+
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error building bootstrap payload: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve bootstrap data"));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.thm_modul.api_gateway.controller;
+
+import com.thm_modul.api_gateway.dto.ApiResponse;
+import com.thm_modul.api_gateway.resilience.DownstreamUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Responses shared by all gateway controllers
+ * Generic catch blocks pass DownstreamUnavailableException on (rethrowIfUnavailable) so it ends up here
+ */
+@Slf4j
+@RestControllerAdvice
+public class GatewayExceptionHandler {
+
+    /**
+     * A downstream bulkhead or circuit breaker refused the call - retrying later can succeed
+     */
+    @ExceptionHandler(DownstreamUnavailableException.class)
+    public ResponseEntity<ApiResponse<Object>> handleDownstreamUnavailable(DownstreamUnavailableException e) {
+        log.warn("Downstream service unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Service temporarily unavailable, please retry later"));
+    }
+}
@@ -1,6 +1,7 @@
 package com.thm_modul.api_gateway.controller;
 
 import com.thm_modul.api_gateway.dto.ApiResponse;
+import com.thm_modul.api_gateway.resilience.DownstreamUnavailableException;
 import com.thm_modul.api_gateway.service.MessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -48,6 +49,7 @@ public class MessageController {
                     .body(ApiResponse.error("Invalid request: " + e.getMessage()));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error sending message: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to send message"));
@@ -78,6 +80,7 @@ public class MessageController {
                     .body(ApiResponse.error("Invalid request: " + e.getMessage()));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error retrieving conversation: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve conversation"));
@@ -111,6 +114,7 @@ public class MessageController {
                     .body(ApiResponse.error("Invalid request: " + e.getMessage()));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error retrieving paginated conversation: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve conversation"));
@@ -134,6 +138,7 @@ public class MessageController {
             return ResponseEntity.ok(ApiResponse.success("Conversations retrieved successfully", conversations));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error retrieving user conversations: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve conversations"));
@@ -159,6 +164,7 @@ public class MessageController {
             return ResponseEntity.ok(ApiResponse.success("Message history retrieved successfully", messageHistory));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error retrieving message history: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve message history"));
@@ -184,6 +190,7 @@ public class MessageController {
             return ResponseEntity.ok(ApiResponse.success("Conversation summary retrieved successfully", summary));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error retrieving conversation summary: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve conversation summary"));
@@ -207,6 +214,7 @@ public class MessageController {
             return ResponseEntity.ok(ApiResponse.success("Message statistics retrieved successfully", stats));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error retrieving message statistics: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve message statistics"));
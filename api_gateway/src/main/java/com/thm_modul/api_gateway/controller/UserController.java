@@ -1,16 +1,25 @@
 package com.thm_modul.api_gateway.controller;
 
+import com.thm_modul.api_gateway.cache.UserProfileCache;
 import com.thm_modul.api_gateway.dto.ApiResponse;
+import com.thm_modul.api_gateway.resilience.DownstreamUnavailableException;
+import com.thm_modul.api_gateway.service.AuthService;
+import com.thm_modul.api_gateway.service.ContactDiscoveryThrottledException;
 import com.thm_modul.api_gateway.service.UserService;
+import com.thm_modul.api_gateway.util.ETagUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.net.URI;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @Slf4j
 @RestController
@@ -19,17 +28,27 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
+    private final AuthService authService;
 
     /**
      * Public user registration endpoint
      * Routes to register user service
+     * With async=true the answer is 202 Accepted with a registration ID, see /register/status/{registrationId}
      */
     @PostMapping("/register")
-    public ResponseEntity<ApiResponse<Object>> registerUser(@Valid @RequestBody Map<String, String> registrationRequest) {
+    public ResponseEntity<ApiResponse<Object>> registerUser(
+            @Valid @RequestBody Map<String, String> registrationRequest,
+            @RequestParam(defaultValue = "false") boolean async) {
         try {
             log.info("User registration request received for: {}", registrationRequest.get("userName"));
 
-            Object registrationResponse = userService.registerUser(registrationRequest);
+            Object registrationResponse = userService.registerUser(registrationRequest, async);
+
+            if (async && registrationResponse instanceof Map<?, ?> accepted) {
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/v1/users/register/status/" + accepted.get("registrationId")))
+                        .body(ApiResponse.success("Registration accepted", registrationResponse));
+            }
 
             return ResponseEntity.status(HttpStatus.CREATED)
                     .body(ApiResponse.success("User registered successfully", registrationResponse));
@@ -40,33 +59,129 @@ public class UserController {
                     .body(ApiResponse.error("Registration failed: " + e.getMessage()));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("User registration error: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Internal server error during registration"));
         }
     }
 
+    /**
+     * Public status of an async registration: PENDING, COMPLETED or FAILED (with the reason)
+     */
+    @GetMapping("/register/status/{registrationId}")
+    public ResponseEntity<ApiResponse<Object>> getRegistrationStatus(@PathVariable UUID registrationId) {
+        try {
+            Object status = userService.getRegistrationStatus(registrationId);
+
+            if (status == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Registration not found"));
+            }
+            return ResponseEntity.ok(ApiResponse.success("Registration status", status));
+
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error retrieving registration status: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve registration status"));
+        }
+    }
+
+    /**
+     * Public username / email availability check for the sign-up form
+     * Returns suggestions when the username is taken
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse<Object>> checkAvailability(
+            @RequestParam(required = false) String userName,
+            @RequestParam(required = false) String email) {
+        try {
+            Object availability = userService.checkAvailability(userName, email);
+
+            return ResponseEntity.ok(ApiResponse.success("Availability checked", availability));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error checking availability: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to check availability"));
+        }
+    }
+
     /**
      * Get current user profile information
      * Requires authentication
      */
     @GetMapping("/profile")
-    public ResponseEntity<ApiResponse<Object>> getUserProfile(Authentication authentication) {
+    public ResponseEntity<ApiResponse<Object>> getUserProfile(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication authentication) {
         try {
             Integer userId = (Integer) authentication.getPrincipal();
             log.debug("Profile request for user ID: {}", userId);
 
-            Object userProfile = userService.getUserProfile(userId);
+            UserProfileCache.CachedProfile userProfile = userService.getUserProfile(userId);
 
-            return ResponseEntity.ok(ApiResponse.success("User profile retrieved", userProfile));
+            if (userProfile == null) {
+                return ResponseEntity.ok(ApiResponse.success("User profile retrieved", null));
+            }
+
+            if (ETagUtil.matches(ifNoneMatch, userProfile.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(userProfile.etag()).build();
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(userProfile.etag())
+                    .body(ApiResponse.success("User profile retrieved", userProfile.profile()));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error retrieving user profile: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve user profile"));
         }
     }
 
+    /**
+     * Delete the current user's account
+     * Requires authentication - the account is disabled at once, messages are purged in the background (202)
+     */
+    @DeleteMapping("/profile")
+    public ResponseEntity<ApiResponse<Object>> deleteUserProfile(
+            @RequestHeader("Authorization") String authorizationHeader,
+            Authentication authentication) {
+        try {
+            Integer userId = (Integer) authentication.getPrincipal();
+            log.debug("Account deletion request for user ID: {}", userId);
+
+            if (!userService.deleteAccount(userId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("User not found"));
+            }
+
+            // The disabled account can no longer refresh, the presented access token is revoked right away
+            try {
+                authService.logout(authorizationHeader.substring(7), null);
+            } catch (Exception e) {
+                log.warn("Could not revoke access token of deleted user {}: {}", userId, e.getMessage());
+            }
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Account deletion scheduled", null));
+
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error deleting user profile: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to delete account"));
+        }
+    }
+
     /**
      * Get public user information by ID
      * Requires authentication - for finding other users
@@ -74,27 +189,108 @@ public class UserController {
     @GetMapping("/{userId}")
     public ResponseEntity<ApiResponse<Object>> getUserById(
             @PathVariable Integer userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             Authentication authentication) {
 
         try {
             Integer requestingUserId = (Integer) authentication.getPrincipal();
             log.debug("User {} requesting info for user {}", requestingUserId, userId);
 
-            Object userInfo = userService.getUserById(userId);
+            UserProfileCache.CachedProfile userInfo = userService.getUserById(userId);
 
             if (userInfo != null) {
-                return ResponseEntity.ok(ApiResponse.success("User information retrieved", userInfo));
+                if (ETagUtil.matches(ifNoneMatch, userInfo.publicEtag())) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(userInfo.publicEtag()).build();
+                }
+
+                return ResponseEntity.ok()
+                        .eTag(userInfo.publicEtag())
+                        .body(ApiResponse.success("User information retrieved", userInfo.publicProfile()));
             } else {
                 return ResponseEntity.notFound().build();
             }
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error retrieving user by ID {}: {}", userId, e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to retrieve user information"));
         }
     }
 
+    /**
+     * Get public user information for many users in one request
+     * Requires authentication - for rendering lists of users (conversations, contacts)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<Object>> getUsersBatch(
+            @RequestBody Map<String, List<Integer>> batchRequest,
+            Authentication authentication) {
+
+        try {
+            Integer requestingUserId = (Integer) authentication.getPrincipal();
+            List<Integer> userIds = batchRequest.get("userIds");
+            log.debug("User {} requesting info for {} users", requestingUserId, userIds != null ? userIds.size() : 0);
+
+            Map<String, Object> users = userService.getUsersBatch(userIds);
+
+            return ResponseEntity.ok(ApiResponse.success("User information retrieved", users));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid batch user request: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error retrieving users in batch: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to retrieve user information"));
+        }
+    }
+
+    /**
+     * Contact discovery: which address book entries (usernames / emails, or their SHA-256 hashes) are registered
+     * Requires authentication - for suggesting conversation partners after an address book import
+     * Limited by a per-user quota of identifiers per day; hashed identifiers are no privacy guarantee,
+     * usernames and emails are guessable enough that their hashes can be reversed by trying candidates
+     */
+    @PostMapping("/discover")
+    public ResponseEntity<ApiResponse<Object>> discoverContacts(
+            @RequestBody Map<String, List<String>> discoveryRequest,
+            Authentication authentication) {
+
+        try {
+            Integer requestingUserId = (Integer) authentication.getPrincipal();
+            List<String> identifiers = discoveryRequest.get("identifiers");
+            List<String> identifierHashes = discoveryRequest.get("identifierHashes");
+            log.debug("User {} discovering contacts", requestingUserId);
+
+            Object matches = userService.discoverContacts(requestingUserId, identifiers, identifierHashes);
+
+            return ResponseEntity.ok(ApiResponse.success("Contacts discovered", matches));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid contact discovery request: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+
+        } catch (ContactDiscoveryThrottledException e) {
+            log.warn("Contact discovery quota exceeded for user: {}", authentication.getPrincipal());
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+            if (e.getRetryAfter() != null) {
+                response.header(HttpHeaders.RETRY_AFTER, e.getRetryAfter());
+            }
+            return response.body(ApiResponse.error("Contact discovery quota exceeded, please retry later"));
+
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error discovering contacts: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to discover contacts"));
+        }
+    }
+
     /**
      * Search users by username (partial match)
      * Requires authentication - for finding conversation partners
@@ -119,6 +315,7 @@ public class UserController {
                     .body(ApiResponse.error("Invalid search parameters"));
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error searching users: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
                     .body(ApiResponse.error("Failed to search users"));
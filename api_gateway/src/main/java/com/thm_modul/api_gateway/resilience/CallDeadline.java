@@ -0,0 +1,40 @@
+package com.thm_modul.api_gateway.resilience;
+
+import java.util.function.Supplier;
+
+/**
+ * Shorter socket timeouts for the downstream calls made on the current thread
+ * The shared RestTemplate waits up to its default read timeout; callers with their own deadline
+ * (the bootstrap fan-out) wrap the call, so a slow downstream frees their thread on time
+ */
+public final class CallDeadline {
+
+    private static final ThreadLocal<Integer> TIMEOUT_MS = new ThreadLocal<>();
+
+    private CallDeadline() {
+    }
+
+    /**
+     * Run the call with connect and read timeouts of at most timeoutMs
+     */
+    public static <T> T withTimeout(int timeoutMs, Supplier<T> call) {
+        Integer previous = TIMEOUT_MS.get();
+        TIMEOUT_MS.set(timeoutMs);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                TIMEOUT_MS.remove();
+            } else {
+                TIMEOUT_MS.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Timeout set for the current thread, null when the defaults apply
+     */
+    public static Integer currentTimeoutMs() {
+        return TIMEOUT_MS.get();
+    }
+}
@@ -0,0 +1,85 @@
+package com.thm_modul.api_gateway.resilience;
+
+import com.thm_modul.api_gateway.routing.Downstream;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulkhead and circuit breaker for a single downstream service
+ * The bulkhead caps how many gateway threads may wait on this service at once,
+ * so a slow dependency can only ever tie up its own share of the request threads
+ */
+public class DownstreamGuard {
+
+    private final Downstream downstream;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMs;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicLong bulkheadRejections = new AtomicLong();
+
+    public DownstreamGuard(Downstream downstream, int maxConcurrentCalls, long maxWaitMs,
+                           CircuitBreaker circuitBreaker) {
+        this.downstream = downstream;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMs = maxWaitMs;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Acquire a bulkhead slot and circuit breaker permission, or fail fast
+     */
+    public void acquire() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new DownstreamUnavailableException(downstream,
+                    "Circuit breaker for " + downstream.getPropertyPrefix() + " is open");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            bulkheadRejections.incrementAndGet();
+            // The call never happened, so it must not count for or against the breaker
+            circuitBreaker.releasePermission();
+            throw new DownstreamUnavailableException(downstream,
+                    "Too many concurrent calls to " + downstream.getPropertyPrefix());
+        }
+    }
+
+    /**
+     * Release the bulkhead slot and record the call outcome
+     */
+    public void release(boolean failed, long durationMs) {
+        bulkhead.release();
+        circuitBreaker.onResult(failed, durationMs);
+    }
+
+    public Downstream getDownstream() {
+        return downstream;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getAvailableConcurrentCalls() {
+        return bulkhead.availablePermits();
+    }
+
+    public long getBulkheadRejections() {
+        return bulkheadRejections.get();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,51 @@
+package com.thm_modul.api_gateway.resilience;
+
+import com.thm_modul.api_gateway.routing.LoadAwareInstanceSelector;
+import com.thm_modul.api_gateway.routing.ServiceInstance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Runs every downstream call through the bulkhead and circuit breaker of its target service
+ * Connection errors, timeouts and 5xx responses count as failures, except 503:
+ * that is a service deliberately shedding load (e.g. login's hashing pool) and must not
+ * open the breaker for the service's cheap endpoints
+ */
+@Component
+@RequiredArgsConstructor
+public class DownstreamGuardInterceptor implements ClientHttpRequestInterceptor {
+
+    private final LoadAwareInstanceSelector instanceSelector;
+    private final DownstreamGuardRegistry guardRegistry;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+
+        ServiceInstance instance = instanceSelector.findByUrl(request.getURI().toString());
+        if (instance == null) {
+            return execution.execute(request, body);
+        }
+
+        DownstreamGuard guard = guardRegistry.get(instance.getDownstream());
+        guard.acquire();
+
+        long start = System.currentTimeMillis();
+        boolean failed = true;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            failed = response.getStatusCode().is5xxServerError()
+                    && response.getStatusCode() != HttpStatus.SERVICE_UNAVAILABLE;
+            return response;
+        } finally {
+            guard.release(failed, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.thm_modul.api_gateway.resilience;
+
+import com.thm_modul.api_gateway.routing.Downstream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Holds one bulkhead + circuit breaker per downstream service
+ * Limits are read from app.resilience.&lt;service&gt;.* with app.resilience.defaults.* as fallback
+ */
+@Slf4j
+@Component
+public class DownstreamGuardRegistry {
+
+    private final Map<Downstream, DownstreamGuard> guards = new EnumMap<>(Downstream.class);
+
+    public DownstreamGuardRegistry(Environment environment) {
+        for (Downstream downstream : Downstream.values()) {
+            String prefix = "app.resilience." + downstream.getPropertyPrefix() + ".";
+            String defaults = "app.resilience.defaults.";
+
+            int maxConcurrentCalls = property(environment, prefix, defaults, "max-concurrent-calls", Integer.class, 25);
+            long maxWaitMs = property(environment, prefix, defaults, "max-wait-ms", Long.class, 50L);
+
+            CircuitBreaker circuitBreaker = new CircuitBreaker(
+                    property(environment, prefix, defaults, "window-size", Integer.class, 50),
+                    property(environment, prefix, defaults, "minimum-calls", Integer.class, 20),
+                    property(environment, prefix, defaults, "failure-rate-threshold", Double.class, 50.0),
+                    property(environment, prefix, defaults, "slow-call-rate-threshold", Double.class, 80.0),
+                    property(environment, prefix, defaults, "slow-call-duration-ms", Long.class, 3000L),
+                    property(environment, prefix, defaults, "open-duration-ms", Long.class, 10000L),
+                    property(environment, prefix, defaults, "half-open-calls", Integer.class, 5)
+            );
+
+            guards.put(downstream, new DownstreamGuard(downstream, maxConcurrentCalls, maxWaitMs, circuitBreaker));
+            log.info("Bulkhead for {} allows {} concurrent calls", downstream, maxConcurrentCalls);
+        }
+    }
+
+    public DownstreamGuard get(Downstream downstream) {
+        return guards.get(downstream);
+    }
+
+    public Map<Downstream, DownstreamGuard> getAll() {
+        return guards;
+    }
+
+    private static <T> T property(Environment environment, String prefix, String defaults,
+                                  String key, Class<T> type, T fallback) {
+        T value = environment.getProperty(prefix + key, type);
+        return value != null ? value : environment.getProperty(defaults + key, type, fallback);
+    }
+}
@@ -0,0 +1,32 @@
+package com.thm_modul.api_gateway.resilience;
+
+import com.thm_modul.api_gateway.routing.Downstream;
+
+/**
+ * Thrown when a call to a downstream service is refused by its bulkhead or circuit breaker
+ * Services and controllers let it propagate, GatewayExceptionHandler answers 503 Service Unavailable
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+
+    private final Downstream downstream;
+
+    public DownstreamUnavailableException(Downstream downstream, String message) {
+        super(message);
+        this.downstream = downstream;
+    }
+
+    public Downstream getDownstream() {
+        return downstream;
+    }
+
+    /**
+     * Rethrow e if it is a DownstreamUnavailableException
+     * First statement of every generic catch block in the gateway's services and controllers,
+     * so a refused call is never turned into their own error, fallback or 500
+     */
+    public static void rethrowIfUnavailable(Exception e) {
+        if (e instanceof DownstreamUnavailableException unavailable) {
+            throw unavailable;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.thm_modul.api_gateway.resilience;
+
+import com.thm_modul.api_gateway.routing.Downstream;
+import com.thm_modul.api_gateway.routing.LoadAwareInstanceSelector;
+import com.thm_modul.api_gateway.routing.ServiceInstance;
+import com.thm_modul.api_gateway.service.SingleFlight;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Actuator endpoint (/actuator/downstreams) exposing bulkhead, circuit breaker and instance load state,
+ * plus single-flight coalescing counters
+ */
+@Component
+@Endpoint(id = "downstreams")
+@RequiredArgsConstructor
+public class DownstreamsEndpoint {
+
+    private final DownstreamGuardRegistry guardRegistry;
+    private final LoadAwareInstanceSelector instanceSelector;
+    private final SingleFlight singleFlight;
+
+    @ReadOperation
+    public Map<String, Object> downstreams() {
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        for (Map.Entry<Downstream, DownstreamGuard> entry : guardRegistry.getAll().entrySet()) {
+            DownstreamGuard guard = entry.getValue();
+            CircuitBreaker circuitBreaker = guard.getCircuitBreaker();
+
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("circuitBreakerState", circuitBreaker.getState());
+            details.put("failureRate", circuitBreaker.getFailureRate());
+            details.put("slowCallRate", circuitBreaker.getSlowCallRate());
+            details.put("bufferedCalls", circuitBreaker.getBufferedCalls());
+            details.put("notPermittedCalls", circuitBreaker.getNotPermittedCalls());
+            details.put("maxConcurrentCalls", guard.getMaxConcurrentCalls());
+            details.put("availableConcurrentCalls", guard.getAvailableConcurrentCalls());
+            details.put("bulkheadRejections", guard.getBulkheadRejections());
+            details.put("instances", describeInstances(instanceSelector.getInstances().get(entry.getKey())));
+
+            result.put(entry.getKey().getPropertyPrefix(), details);
+        }
+
+        Map<String, Object> coalescing = new LinkedHashMap<>();
+        coalescing.put("executedCalls", singleFlight.getExecutedCalls());
+        coalescing.put("coalescedCalls", singleFlight.getCoalescedCalls());
+        coalescing.put("inFlightKeys", singleFlight.getInFlightKeys());
+        result.put("singleFlight", coalescing);
+
+        return result;
+    }
+
+    private List<Map<String, Object>> describeInstances(List<ServiceInstance> instances) {
+        return instances.stream().map(instance -> {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("url", instance.getBaseUrl());
+            details.put("healthy", instance.isHealthy());
+            details.put("localInFlight", instance.getLocalInFlight());
+            details.put("remoteInFlight", instance.getRemoteInFlight());
+            details.put("poolSaturation", instance.getPoolSaturation());
+            details.put("p99LatencyMs", instance.getP99LatencyMs());
+            return details;
+        }).collect(Collectors.toList());
+    }
+}
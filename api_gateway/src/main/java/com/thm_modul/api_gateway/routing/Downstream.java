@@ -0,0 +1,22 @@
+package com.thm_modul.api_gateway.routing;
+
+/**
+ * Internal services the API Gateway forwards requests to
+ * The property prefix maps to the app.&lt;prefix&gt;.url / app.&lt;prefix&gt;.instances configuration keys
+ */
+public enum Downstream {
+
+    REGISTER("register-service"),
+    LOGIN("login-service"),
+    MESSAGE("message-service");
+
+    private final String propertyPrefix;
+
+    Downstream(String propertyPrefix) {
+        this.propertyPrefix = propertyPrefix;
+    }
+
+    public String getPropertyPrefix() {
+        return propertyPrefix;
+    }
+}
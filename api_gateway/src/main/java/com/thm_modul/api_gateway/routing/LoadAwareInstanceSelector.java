@@ -0,0 +1,202 @@
+package com.thm_modul.api_gateway.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses a downstream instance for each request using power-of-two-choices
+ * Two random healthy instances are compared on their published load and the cheaper one wins,
+ * so traffic drains away from an instance as soon as its latency or pool saturation climbs
+ */
+@Slf4j
+@Component
+public class LoadAwareInstanceSelector {
+
+    private final Environment environment;
+    private final RestTemplate loadPollClient;
+    private final Map<Downstream, List<ServiceInstance>> instances = new EnumMap<>(Downstream.class);
+
+    @Value("${app.gateway.secret}")
+    private String gatewaySecret;
+
+    @Value("${app.routing.stale-after-ms:6000}")
+    private long staleAfterMs;
+
+    public LoadAwareInstanceSelector(Environment environment) {
+        this.environment = environment;
+
+        // Dedicated client with short timeouts - polling must never hold on to a slow instance
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(500);
+        factory.setReadTimeout(1000);
+        this.loadPollClient = new RestTemplate(factory);
+    }
+
+    /**
+     * Read instance lists from app.<service>.instances, falling back to the single app.<service>.url
+     */
+    @PostConstruct
+    public void init() {
+        for (Downstream downstream : Downstream.values()) {
+            String prefix = "app." + downstream.getPropertyPrefix();
+            String configured = environment.getProperty(prefix + ".instances", "");
+            if (configured.isBlank()) {
+                configured = environment.getRequiredProperty(prefix + ".url");
+            }
+
+            List<ServiceInstance> serviceInstances = Arrays.stream(configured.split(","))
+                    .map(String::trim)
+                    .filter(url -> !url.isEmpty())
+                    .map(url -> new ServiceInstance(downstream, stripTrailingSlash(url)))
+                    .collect(Collectors.toList());
+
+            instances.put(downstream, serviceInstances);
+            log.info("Routing {} across {} instance(s): {}", downstream, serviceInstances.size(),
+                    serviceInstances.stream().map(ServiceInstance::getBaseUrl).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Base URL of the instance that should receive the next request for the given service
+     */
+    public String choose(Downstream downstream) {
+        return chooseInstance(downstream).getBaseUrl();
+    }
+
+    /**
+     * Power-of-two-choices over healthy instances, random pick if every instance looks unhealthy
+     */
+    public ServiceInstance chooseInstance(Downstream downstream) {
+        List<ServiceInstance> all = instances.get(downstream);
+        if (all.size() == 1) {
+            return all.get(0);
+        }
+
+        List<ServiceInstance> candidates = new ArrayList<>(all.size());
+        for (ServiceInstance instance : all) {
+            if (instance.isHealthy()) {
+                candidates.add(instance);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = all;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return a.cost(staleAfterMs) <= b.cost(staleAfterMs) ? a : b;
+    }
+
+    /**
+     * Find the instance a request URL belongs to, used by the load tracking interceptor
+     */
+    public ServiceInstance findByUrl(String url) {
+        for (List<ServiceInstance> serviceInstances : instances.values()) {
+            for (ServiceInstance instance : serviceInstances) {
+                if (url.startsWith(instance.getBaseUrl())) {
+                    return instance;
+                }
+            }
+        }
+        return null;
+    }
+
+    public Map<Downstream, List<ServiceInstance>> getInstances() {
+        return instances;
+    }
+
+    /**
+     * Refresh the published load of every instance
+     * An instance that cannot be polled is taken out of rotation until it answers again
+     */
+    @Scheduled(fixedDelayString = "${app.routing.poll-interval-ms:2000}")
+    public void refreshLoad() {
+        for (List<ServiceInstance> serviceInstances : instances.values()) {
+            if (serviceInstances.size() < 2) {
+                continue; // Nothing to choose between
+            }
+            for (ServiceInstance instance : serviceInstances) {
+                pollInstance(instance);
+            }
+        }
+    }
+
+    private void pollInstance(ServiceInstance instance) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Gateway-Secret", gatewaySecret);
+
+            ResponseEntity<Map> response = loadPollClient.exchange(
+                    instance.getBaseUrl() + "/internal/v1/load",
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    Map.class
+            );
+
+            Map<String, Object> body = response.getBody();
+            Map<String, Object> data = body != null ? (Map<String, Object>) body.get("data") : null;
+            if (data == null) {
+                instance.markUnhealthy();
+                return;
+            }
+
+            instance.updateLoad(
+                    asInt(data.get("inFlight")),
+                    asInt(data.get("threadsAwaitingConnection")),
+                    asDouble(data.get("poolSaturation")),
+                    asLong(data.get("p99LatencyMs"))
+            );
+
+        } catch (Exception e) {
+            if (instance.isHealthy()) {
+                log.warn("Load poll failed for {} instance {}: {}", instance.getDownstream(),
+                        instance.getBaseUrl(), e.getMessage());
+            }
+            instance.markUnhealthy();
+        }
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static int asInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double asDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.thm_modul.api_gateway.routing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+
+/**
+ * Keeps the gateway-local in-flight count per downstream instance
+ * Connection failures take the instance out of rotation immediately instead of waiting for the next poll
+ * Only errors that mean the instance cannot be reached count: a timeout or reset on a reachable instance
+ * is a slow or overloaded service, left to the circuit breaker
+ */
+@Component
+@RequiredArgsConstructor
+public class LoadTrackingInterceptor implements ClientHttpRequestInterceptor {
+
+    private final LoadAwareInstanceSelector instanceSelector;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+
+        ServiceInstance instance = instanceSelector.findByUrl(request.getURI().toString());
+        if (instance == null) {
+            return execution.execute(request, body);
+        }
+
+        instance.requestStarted();
+        try {
+            return execution.execute(request, body);
+        } catch (ConnectException | NoRouteToHostException | UnknownHostException e) {
+            instance.markUnhealthy();
+            throw e;
+        } finally {
+            instance.requestFinished();
+        }
+    }
+}
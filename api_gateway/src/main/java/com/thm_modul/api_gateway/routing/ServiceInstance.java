@@ -0,0 +1,98 @@
+package com.thm_modul.api_gateway.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One instance of a downstream service together with its last published load
+ * Remote figures are refreshed by polling, the local in-flight counter is kept by the gateway itself
+ */
+public class ServiceInstance {
+
+    private final Downstream downstream;
+    private final String baseUrl;
+    private final AtomicInteger localInFlight = new AtomicInteger();
+
+    private volatile boolean healthy = true;
+    private volatile int remoteInFlight;
+    private volatile int threadsAwaitingConnection;
+    private volatile double poolSaturation;
+    private volatile long p99LatencyMs;
+    private volatile long lastUpdated;
+
+    public ServiceInstance(Downstream downstream, String baseUrl) {
+        this.downstream = downstream;
+        this.baseUrl = baseUrl;
+    }
+
+    public Downstream getDownstream() {
+        return downstream;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public int getLocalInFlight() {
+        return localInFlight.get();
+    }
+
+    public int getRemoteInFlight() {
+        return remoteInFlight;
+    }
+
+    public double getPoolSaturation() {
+        return poolSaturation;
+    }
+
+    public long getP99LatencyMs() {
+        return p99LatencyMs;
+    }
+
+    public long getLastUpdated() {
+        return lastUpdated;
+    }
+
+    void requestStarted() {
+        localInFlight.incrementAndGet();
+    }
+
+    void requestFinished() {
+        localInFlight.decrementAndGet();
+    }
+
+    void markUnhealthy() {
+        healthy = false;
+    }
+
+    void updateLoad(int inFlight, int awaiting, double saturation, long p99Ms) {
+        this.remoteInFlight = inFlight;
+        this.threadsAwaitingConnection = awaiting;
+        this.poolSaturation = saturation;
+        this.p99LatencyMs = p99Ms;
+        this.lastUpdated = System.currentTimeMillis();
+        this.healthy = true;
+    }
+
+    /**
+     * Estimated cost of sending one more request to this instance (lower is better)
+     * Queue length is weighted by tail latency and by how close the connection pool is to exhaustion,
+     * stale remote figures are ignored so a silent instance is judged on gateway-local data only
+     */
+    double cost(long staleAfterMs) {
+        boolean fresh = System.currentTimeMillis() - lastUpdated <= staleAfterMs;
+
+        double queue = localInFlight.get() + 1;
+        if (!fresh) {
+            return queue;
+        }
+
+        queue += remoteInFlight + threadsAwaitingConnection;
+        double latencyFactor = 1.0 + p99LatencyMs / 100.0;
+        double poolFactor = 1.0 + poolSaturation * poolSaturation * 4.0;
+        return queue * latencyFactor * poolFactor;
+    }
+}
@@ -1,6 +1,7 @@
 package com.thm_modul.api_gateway.security;
 
 import com.thm_modul.api_gateway.util.JwtUtil;
+import com.thm_modul.jwt_codec.JwtClaims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -22,6 +23,7 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final TokenRevocationList revocationList;
 
     /**
      * Main JWT authentication filter for API Gateway
@@ -42,13 +44,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 // Extract token (remove "Bearer " prefix)
                 String token = authorizationHeader.substring(7);
 
-                // Validate token
-                if (jwtUtil.validateToken(token)) {
+                // Validate token and read its claims in a single parse
+                JwtClaims claims = jwtUtil.parseValidClaims(token);
+                if (claims != null) {
                     // Extract user information from token
-                    String username = jwtUtil.extractUsername(token);
-                    Integer userId = jwtUtil.getUserIdFromToken(token);
+                    String username = claims.subject();
+                    Integer userId = claims.userId();
 
-                    if (username != null && userId != null) {
+                    // Logged out tokens stay cryptographically valid until they expire
+                    if (revocationList.isRevoked(claims.id())) {
+                        log.debug("Revoked JWT token provided for user ID: {}", userId);
+                    } else if (username != null && userId != null) {
                         // Create authentication object
                         UsernamePasswordAuthenticationToken authenticationToken =
                                 new UsernamePasswordAuthenticationToken(
@@ -89,6 +95,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return path.equals("/api/v1/auth/login") ||
                 path.equals("/api/v1/auth/refresh") ||
                 path.equals("/api/v1/users/register") ||
+                path.equals("/api/v1/users/availability") ||
+                path.startsWith("/api/v1/users/register/status/") ||
                 path.startsWith("/actuator/") ||
                 path.equals("/api/v1/health");
     }
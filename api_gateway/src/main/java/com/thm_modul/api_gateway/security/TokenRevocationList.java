@@ -0,0 +1,118 @@
+package com.thm_modul.api_gateway.security;
+
+import com.thm_modul.api_gateway.routing.Downstream;
+import com.thm_modul.api_gateway.routing.LoadAwareInstanceSelector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the revoked token IDs (jti -> original expiry)
+ * Synced from the login service's revocation feed by every gateway instance, so checking
+ * a token is a hash lookup and never a database hit. Entries are pruned once the token
+ * would have expired anyway, which keeps the set as small as the number of live revoked tokens
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final RestTemplate restTemplate;
+    private final LoadAwareInstanceSelector instanceSelector;
+    private final long overlapMs;
+
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile long syncedUntil;
+    private volatile boolean synced;
+
+    @Value("${app.gateway.secret}")
+    private String gatewaySecret;
+
+    public TokenRevocationList(
+            RestTemplate restTemplate,
+            LoadAwareInstanceSelector instanceSelector,
+            @Value("${app.revocation.overlap-ms:30000}") long overlapMs) {
+        this.restTemplate = restTemplate;
+        this.instanceSelector = instanceSelector;
+        this.overlapMs = overlapMs;
+    }
+
+    /**
+     * Check whether a token ID has been revoked
+     */
+    public boolean isRevoked(String jti) {
+        return jti != null && revoked.containsKey(jti);
+    }
+
+    /**
+     * Apply revocations returned by the login service (logout or feed)
+     */
+    public void addAll(List<Map<String, Object>> entries) {
+        long now = System.currentTimeMillis();
+        for (Map<String, Object> entry : entries) {
+            String jti = (String) entry.get("jti");
+            long expiresAt = ((Number) entry.get("expiresAt")).longValue();
+            if (jti != null && expiresAt > now) {
+                revoked.put(jti, expiresAt);
+            }
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Pull new revocations from the login service and prune expired ones
+     * The first sync loads every revocation that still matters
+     */
+    @Scheduled(fixedDelayString = "${app.revocation.poll-interval-ms:2000}")
+    @SuppressWarnings("unchecked")
+    public void sync() {
+        // Revocations are stamped by whichever login instance handled the logout, allow for clock skew
+        long since = synced ? Math.max(0, syncedUntil - overlapMs) : 0;
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Gateway-Secret", gatewaySecret);
+
+            String url = instanceSelector.choose(Downstream.LOGIN) + "/internal/v1/auth/revocations?since=" + since;
+
+            ResponseEntity<Map> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    Map.class
+            );
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null
+                    && Boolean.TRUE.equals(response.getBody().get("success"))) {
+                Map<String, Object> feed = (Map<String, Object>) response.getBody().get("data");
+
+                addAll((List<Map<String, Object>>) feed.get("revocations"));
+                syncedUntil = ((Number) feed.get("serverTime")).longValue();
+
+                if (!synced) {
+                    log.info("Token revocation list loaded with {} entries", revoked.size());
+                }
+                synced = true;
+            }
+
+        } catch (Exception e) {
+            log.warn("Failed to sync token revocations: {}", e.getMessage());
+        }
+
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+    }
+}
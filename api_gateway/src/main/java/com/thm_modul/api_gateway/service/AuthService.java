@@ -1,13 +1,23 @@
 package com.thm_modul.api_gateway.service;
 
+import com.thm_modul.api_gateway.cache.UserProfileCache;
+import com.thm_modul.api_gateway.resilience.DownstreamUnavailableException;
+import com.thm_modul.api_gateway.routing.Downstream;
+import com.thm_modul.api_gateway.routing.LoadAwareInstanceSelector;
+import com.thm_modul.api_gateway.security.TokenRevocationList;
+import com.thm_modul.api_gateway.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -16,9 +26,10 @@ import java.util.Map;
 public class AuthService {
 
     private final RestTemplate restTemplate;
-
-    @Value("${app.login-service.url}")
-    private String loginServiceUrl;
+    private final LoadAwareInstanceSelector instanceSelector;
+    private final UserService userService;
+    private final TokenRevocationList revocationList;
+    private final JwtUtil jwtUtil;
 
     @Value("${app.gateway.secret}")
     private String gatewaySecret;
@@ -26,13 +37,17 @@ public class AuthService {
     /**
      * Authenticate user via login service
      * Forwards login request to internal login service
+     * @param clientIp address of the end client, used by the login service for brute-force throttling
      */
-    public Object authenticateUser(Map<String, String> loginRequest) {
+    public Object authenticateUser(Map<String, String> loginRequest, String clientIp) {
         try {
             HttpHeaders headers = createInternalHeaders();
+            if (clientIp != null) {
+                headers.set("X-Client-IP", clientIp);
+            }
             HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(loginRequest, headers);
 
-            String url = loginServiceUrl + "/internal/v1/auth/login";
+            String url = instanceSelector.choose(Downstream.LOGIN) + "/internal/v1/auth/login";
 
             ResponseEntity<Map> response = restTemplate.exchange(
                     url,
@@ -57,7 +72,17 @@ public class AuthService {
 
         } catch (IllegalArgumentException e) {
             throw e;
+        } catch (HttpServerErrorException.ServiceUnavailable e) {
+            // Login service is shedding load (password hashing pool full)
+            throw new DownstreamUnavailableException(Downstream.LOGIN, "Login service overloaded");
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            // Too many failed attempts for this account or address
+            String retryAfter = e.getResponseHeaders() != null
+                    ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)
+                    : null;
+            throw new LoginThrottledException("Login throttled by login service", retryAfter);
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error communicating with login service: {}", e.getMessage(), e);
             throw new RuntimeException("Authentication service unavailable");
         }
@@ -67,11 +92,17 @@ public class AuthService {
      * Refresh JWT tokens via login service
      */
     public Object refreshToken(Map<String, String> refreshRequest) {
+        // Refresh tokens revoked on logout are rejected without a downstream call
+        String refreshToken = refreshRequest.get("refreshToken");
+        if (refreshToken != null && revocationList.isRevoked(jwtUtil.extractJti(refreshToken))) {
+            throw new IllegalArgumentException("Refresh token has been revoked");
+        }
+
         try {
             HttpHeaders headers = createInternalHeaders();
             HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(refreshRequest, headers);
 
-            String url = loginServiceUrl + "/internal/v1/auth/refresh";
+            String url = instanceSelector.choose(Downstream.LOGIN) + "/internal/v1/auth/refresh";
 
             ResponseEntity<Map> response = restTemplate.exchange(
                     url,
@@ -97,57 +128,98 @@ public class AuthService {
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error refreshing token via login service: {}", e.getMessage(), e);
             throw new RuntimeException("Token refresh service unavailable");
         }
     }
 
     /**
-     * Get current user information from security context
-     * Uses the authenticated user's information from JWT
+     * Logout: revoke the session's access token (and refresh token, if given) via login service
+     * The revocations are applied to this instance right away, other gateway instances pick them up on their next sync
      */
-    public Object getCurrentUserInfo() {
+    @SuppressWarnings("unchecked")
+    public void logout(String accessToken, String refreshToken) {
         try {
-            var authentication = SecurityContextHolder.getContext().getAuthentication();
+            HttpHeaders headers = createInternalHeaders();
+            Map<String, String> revokeRequest = new HashMap<>();
+            revokeRequest.put("accessToken", accessToken);
+            revokeRequest.put("refreshToken", refreshToken);
+            HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(revokeRequest, headers);
 
-            if (authentication != null && authentication.isAuthenticated()) {
-                Integer userId = (Integer) authentication.getPrincipal();
-                String username = (String) authentication.getCredentials();
+            String url = instanceSelector.choose(Downstream.LOGIN) + "/internal/v1/auth/revoke";
 
-                // Get detailed user info from login service
-                HttpHeaders headers = createInternalHeaders();
-                HttpEntity<String> requestEntity = new HttpEntity<>(headers);
+            ResponseEntity<Map> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    requestEntity,
+                    Map.class
+            );
 
-                String url = loginServiceUrl + "/internal/v1/auth/user-info/" + userId;
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Map<String, Object> responseBody = response.getBody();
 
-                ResponseEntity<Map> response = restTemplate.exchange(
-                        url,
-                        HttpMethod.GET,
-                        requestEntity,
-                        Map.class
-                );
+                if (Boolean.TRUE.equals(responseBody.get("success"))) {
+                    revocationList.addAll((List<Map<String, Object>>) responseBody.get("data"));
+                    log.debug("Tokens revoked via login service");
+                    return;
+                }
+            }
 
-                if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                    Map<String, Object> responseBody = response.getBody();
+            throw new RuntimeException("Invalid response from login service");
 
-                    if (Boolean.TRUE.equals(responseBody.get("success"))) {
-                        return responseBody.get("data");
-                    }
-                }
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error revoking tokens via login service: {}", e.getMessage(), e);
+            throw new RuntimeException("Logout service unavailable");
+        }
+    }
 
-                // Fallback to basic info from token if service call fails
-                return Map.of(
-                        "userId", userId,
-                        "username", username
-                );
-            }
+    /**
+     * Get current user information from security context
+     * Uses the authenticated user's information from JWT
+     */
+    public Map<String, Object> getCurrentUserInfo() {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
 
+        if (authentication == null || !authentication.isAuthenticated()) {
             throw new IllegalStateException("No authenticated user found");
+        }
+
+        // userId and username come straight from the validated JWT claims
+        Integer userId = (Integer) authentication.getPrincipal();
+        String username = (String) authentication.getCredentials();
+
+        return getUserInfo(userId, username);
+    }
+
+    /**
+     * Build user information from the given token claims plus the cached profile
+     * Takes the claims explicitly so it can also run off the request thread
+     */
+    public Map<String, Object> getUserInfo(Integer userId, String username) {
+        try {
+            // Only the email has to come from the profile, loaded through the cache
+            UserProfileCache.CachedProfile cached = userService.getUserProfile(userId);
+
+            if (cached != null) {
+                Map<String, Object> userInfo = new HashMap<>();
+                userInfo.put("userId", userId);
+                userInfo.put("username", username);
+                userInfo.put("email", cached.profile().get("email"));
+                return userInfo;
+            }
 
         } catch (Exception e) {
-            log.error("Error getting current user info: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to retrieve user information");
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.warn("Profile lookup for user {} failed, answering from token claims: {}", userId, e.getMessage());
         }
+
+        // Fallback to basic info from token if the profile lookup failed; a refused call propagates (503)
+        return Map.of(
+                "userId", userId,
+                "username", username
+        );
     }
 
     /**
@@ -159,7 +231,7 @@ public class AuthService {
             HttpHeaders headers = createInternalHeaders();
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = loginServiceUrl + "/internal/v1/auth/validate-user/" + userId;
+            String url = instanceSelector.choose(Downstream.LOGIN) + "/internal/v1/auth/validate-user/" + userId;
 
             ResponseEntity<Map> response = restTemplate.exchange(
                     url,
@@ -180,6 +252,7 @@ public class AuthService {
             return false;
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.warn("Error validating user existence for ID {}: {}", userId, e.getMessage());
             return false;
         }
@@ -0,0 +1,180 @@
+package com.thm_modul.api_gateway.service;
+
+import com.thm_modul.api_gateway.resilience.CallDeadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Builds the app's inbox bootstrap payload in one gateway round trip
+ * User info, conversation list and stats are fetched in parallel, the latest page of the
+ * top conversations as soon as the conversation list is in. Every call has its own deadline
+ * and a failed or late part is reported in "errors" instead of failing the whole payload
+ */
+@Slf4j
+@Service
+public class BootstrapService {
+
+    private final AuthService authService;
+    private final MessageService messageService;
+    private final long callTimeoutMs;
+    private final int topConversations;
+    private final int pageSize;
+    private final ThreadPoolExecutor fanOutExecutor;
+
+    public BootstrapService(
+            AuthService authService,
+            MessageService messageService,
+            @Value("${app.bootstrap.call-timeout-ms:2000}") long callTimeoutMs,
+            @Value("${app.bootstrap.top-conversations:3}") int topConversations,
+            @Value("${app.bootstrap.page-size:20}") int pageSize,
+            @Value("${app.bootstrap.threads:32}") int threads,
+            @Value("${app.bootstrap.queue-capacity:256}") int queueCapacity) {
+        this.authService = authService;
+        this.messageService = messageService;
+        this.callTimeoutMs = callTimeoutMs;
+        this.topConversations = topConversations;
+        this.pageSize = pageSize;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.fanOutExecutor = new ThreadPoolExecutor(
+                threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bootstrap-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.fanOutExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Fetch everything the app needs on start
+     * The user is passed explicitly, the security context is thread-bound and not visible to the fan-out threads
+     */
+    public Map<String, Object> bootstrap(Integer userId, String username) {
+        CompletableFuture<Map<String, Object>> user = call(() -> authService.getUserInfo(userId, username));
+        CompletableFuture<Object> conversations = call(() -> messageService.getUserConversations(userId, username));
+        CompletableFuture<Object> stats = call(() -> messageService.getMessageStats(userId, username));
+
+        // Second stage: latest page of the most recent conversations, started as soon as the list arrives
+        CompletableFuture<Map<String, Object>> latestPages = conversations
+                .thenCompose(list -> fetchLatestPages(userId, username, list));
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+
+        collect("user", user, payload, errors);
+        collect("conversations", conversations, payload, errors);
+        collect("stats", stats, payload, errors);
+
+        if (!errors.containsKey("conversations")) {
+            Map<String, Object> pages = latestPages.join();
+            Map<String, Object> loadedPages = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> page : pages.entrySet()) {
+                if (page.getValue() instanceof String error) {
+                    errors.put("latestMessages." + page.getKey(), error);
+                } else {
+                    loadedPages.put(page.getKey(), page.getValue());
+                }
+            }
+            payload.put("latestMessages", loadedPages);
+        }
+
+        payload.put("errors", errors);
+        return payload;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.shutdownNow();
+    }
+
+    /**
+     * Page 0 (newest messages first) of the top conversations, keyed by the other user's ID
+     * Failed pages map to their error message
+     */
+    private CompletableFuture<Map<String, Object>> fetchLatestPages(Integer userId, String username, Object conversations) {
+        List<Integer> otherUserIds = new ArrayList<>();
+        if (conversations instanceof List<?> list) {
+            for (Object conversation : list) {
+                if (otherUserIds.size() >= topConversations) {
+                    break;
+                }
+                if (conversation instanceof Map<?, ?> summary && summary.get("otherUserId") instanceof Number otherUserId) {
+                    otherUserIds.add(otherUserId.intValue());
+                }
+            }
+        }
+
+        Map<String, CompletableFuture<Object>> pages = new LinkedHashMap<>();
+        for (Integer otherUserId : otherUserIds) {
+            pages.put(String.valueOf(otherUserId), call(() ->
+                    messageService.getConversationPaginated(userId, username, otherUserId, 0, pageSize)));
+        }
+
+        return CompletableFuture.allOf(pages.values().stream()
+                        .map(page -> page.exceptionally(e -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    pages.forEach((otherUserId, page) -> {
+                        try {
+                            result.put(otherUserId, page.join());
+                        } catch (CompletionException e) {
+                            result.put(otherUserId, describe(e));
+                        }
+                    });
+                    return result;
+                });
+    }
+
+    /**
+     * Run one downstream call on the fan-out pool with the per-call deadline
+     * The socket timeouts match the deadline, so a late call also gives its fan-out thread back
+     * instead of holding it for the RestTemplate's default read timeout
+     */
+    private <T> CompletableFuture<T> call(Supplier<T> downstreamCall) {
+        try {
+            return CompletableFuture.supplyAsync(
+                            () -> CallDeadline.withTimeout((int) callTimeoutMs, downstreamCall), fanOutExecutor)
+                    .orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Gateway is busy"));
+        }
+    }
+
+    private void collect(String part, CompletableFuture<?> future, Map<String, Object> payload, Map<String, String> errors) {
+        try {
+            payload.put(part, future.join());
+        } catch (CompletionException e) {
+            log.warn("Bootstrap part '{}' failed: {}", part, describe(e));
+            errors.put(part, describe(e));
+        }
+    }
+
+    private String describe(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException) {
+            return "Timed out after " + callTimeoutMs + " ms";
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,22 @@
+package com.thm_modul.api_gateway.service;
+
+/**
+ * Thrown when the login service refuses a login because of too many failed attempts
+ * Controllers translate it into 429 Too Many Requests with Retry-After
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final String retryAfter;
+
+    public LoginThrottledException(String message, String retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Retry-After value as sent by the login service, may be null
+     */
+    public String getRetryAfter() {
+        return retryAfter;
+    }
+}
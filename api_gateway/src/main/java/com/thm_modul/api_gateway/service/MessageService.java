@@ -1,5 +1,8 @@
 package com.thm_modul.api_gateway.service;
 
+import com.thm_modul.api_gateway.resilience.DownstreamUnavailableException;
+import com.thm_modul.api_gateway.routing.Downstream;
+import com.thm_modul.api_gateway.routing.LoadAwareInstanceSelector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,9 +18,8 @@ import java.util.Map;
 public class MessageService {
 
     private final RestTemplate restTemplate;
-
-    @Value("${app.message-service.url}")
-    private String messageServiceUrl;
+    private final LoadAwareInstanceSelector instanceSelector;
+    private final SingleFlight singleFlight;
 
     @Value("${app.gateway.secret}")
     private String gatewaySecret;
@@ -30,7 +32,7 @@ public class MessageService {
             HttpHeaders headers = createInternalHeadersWithUser(senderId, senderUsername);
             HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(messageRequest, headers);
 
-            String url = messageServiceUrl + "/internal/v1/messages/send";
+            String url = instanceSelector.choose(Downstream.MESSAGE) + "/internal/v1/messages/send";
 
             ResponseEntity<Map> response = restTemplate.exchange(
                     url,
@@ -56,6 +58,7 @@ public class MessageService {
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error communicating with message service: {}", e.getMessage(), e);
             throw new RuntimeException("Message service unavailable");
         }
@@ -69,14 +72,14 @@ public class MessageService {
             HttpHeaders headers = createInternalHeadersWithUser(userId, username);
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = messageServiceUrl + "/internal/v1/messages/conversation/" + otherUserId;
+            String path = "/internal/v1/messages/conversation/" + otherUserId;
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
+            ResponseEntity<Map> response = singleFlight.execute(userScopedKey(userId, path), () -> restTemplate.exchange(
+                    instanceSelector.choose(Downstream.MESSAGE) + path,
                     HttpMethod.GET,
                     requestEntity,
                     Map.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> responseBody = response.getBody();
@@ -94,6 +97,7 @@ public class MessageService {
         } catch (IllegalArgumentException e) {
             throw e;
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error getting conversation from message service: {}", e.getMessage(), e);
             throw new RuntimeException("Message service unavailable");
         }
@@ -107,15 +111,15 @@ public class MessageService {
             HttpHeaders headers = createInternalHeadersWithUser(userId, username);
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = messageServiceUrl + "/internal/v1/messages/conversation/" + otherUserId +
+            String path = "/internal/v1/messages/conversation/" + otherUserId +
                     "/paginated?page=" + page + "&size=" + size;
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
+            ResponseEntity<Map> response = singleFlight.execute(userScopedKey(userId, path), () -> restTemplate.exchange(
+                    instanceSelector.choose(Downstream.MESSAGE) + path,
                     HttpMethod.GET,
                     requestEntity,
                     Map.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> responseBody = response.getBody();
@@ -131,6 +135,7 @@ public class MessageService {
             throw new RuntimeException("Invalid response from message service");
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error getting paginated conversation from message service: {}", e.getMessage(), e);
             throw new RuntimeException("Message service unavailable");
         }
@@ -144,14 +149,14 @@ public class MessageService {
             HttpHeaders headers = createInternalHeadersWithUser(userId, username);
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = messageServiceUrl + "/internal/v1/messages/conversations";
+            String path = "/internal/v1/messages/conversations";
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
+            ResponseEntity<Map> response = singleFlight.execute(userScopedKey(userId, path), () -> restTemplate.exchange(
+                    instanceSelector.choose(Downstream.MESSAGE) + path,
                     HttpMethod.GET,
                     requestEntity,
                     Map.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> responseBody = response.getBody();
@@ -166,6 +171,7 @@ public class MessageService {
             return java.util.List.of();
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error getting user conversations from message service: {}", e.getMessage(), e);
             throw new RuntimeException("Message service unavailable");
         }
@@ -179,14 +185,14 @@ public class MessageService {
             HttpHeaders headers = createInternalHeadersWithUser(userId, username);
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = messageServiceUrl + "/internal/v1/messages/history?limit=" + limit;
+            String path = "/internal/v1/messages/history?limit=" + limit;
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
+            ResponseEntity<Map> response = singleFlight.execute(userScopedKey(userId, path), () -> restTemplate.exchange(
+                    instanceSelector.choose(Downstream.MESSAGE) + path,
                     HttpMethod.GET,
                     requestEntity,
                     Map.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> responseBody = response.getBody();
@@ -201,6 +207,7 @@ public class MessageService {
             return java.util.List.of();
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error getting message history from message service: {}", e.getMessage(), e);
             throw new RuntimeException("Message service unavailable");
         }
@@ -214,14 +221,14 @@ public class MessageService {
             HttpHeaders headers = createInternalHeadersWithUser(userId, username);
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = messageServiceUrl + "/internal/v1/messages/conversation/" + otherUserId + "/summary";
+            String path = "/internal/v1/messages/conversation/" + otherUserId + "/summary";
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
+            ResponseEntity<Map> response = singleFlight.execute(userScopedKey(userId, path), () -> restTemplate.exchange(
+                    instanceSelector.choose(Downstream.MESSAGE) + path,
                     HttpMethod.GET,
                     requestEntity,
                     Map.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> responseBody = response.getBody();
@@ -236,6 +243,7 @@ public class MessageService {
             return null;
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error getting conversation summary from message service: {}", e.getMessage(), e);
             throw new RuntimeException("Message service unavailable");
         }
@@ -249,14 +257,14 @@ public class MessageService {
             HttpHeaders headers = createInternalHeadersWithUser(userId, username);
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = messageServiceUrl + "/internal/v1/messages/stats";
+            String path = "/internal/v1/messages/stats";
 
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
+            ResponseEntity<Map> response = singleFlight.execute(userScopedKey(userId, path), () -> restTemplate.exchange(
+                    instanceSelector.choose(Downstream.MESSAGE) + path,
                     HttpMethod.GET,
                     requestEntity,
                     Map.class
-            );
+            ));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> responseBody = response.getBody();
@@ -281,11 +289,20 @@ public class MessageService {
             );
 
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error getting message stats from message service: {}", e.getMessage(), e);
             throw new RuntimeException("Message service unavailable");
         }
     }
 
+    /**
+     * Single-flight key for a GET whose response depends on the requesting user
+     * Identical concurrent requests of the same user then share one downstream call
+     */
+    private String userScopedKey(Integer userId, String path) {
+        return "message-service:" + userId + ":" + path;
+    }
+
     /**
      * Create headers for internal service communication
      */
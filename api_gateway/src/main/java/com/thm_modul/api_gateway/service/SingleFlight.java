@@ -0,0 +1,85 @@
+package com.thm_modul.api_gateway.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical concurrent downstream GETs
+ * The first caller for a key performs the call, every caller arriving while it is
+ * in flight waits for and shares its result (or its exception) instead of issuing its own
+ * Nothing is cached - once the call completes the next caller starts a fresh one
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executedCalls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+
+    /**
+     * Run the call for this key, or join the identical call already in flight
+     * Keys must contain everything the response depends on (path, query and user scope)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> call) {
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, own);
+
+        if (existing != null) {
+            coalescedCalls.incrementAndGet();
+            log.debug("Joining in-flight downstream call for key: {}", key);
+            return (T) await(existing);
+        }
+
+        executedCalls.incrementAndGet();
+        try {
+            T result = call.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    public long getExecutedCalls() {
+        return executedCalls.get();
+    }
+
+    public long getCoalescedCalls() {
+        return coalescedCalls.get();
+    }
+
+    public int getInFlightKeys() {
+        return inFlight.size();
+    }
+
+    /**
+     * Wait for the leader's result and rethrow its failure unwrapped,
+     * so followers see exactly the exception the leader saw
+     */
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
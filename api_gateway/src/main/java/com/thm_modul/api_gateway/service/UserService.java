@@ -1,16 +1,26 @@
 package com.thm_modul.api_gateway.service;
 
+import com.thm_modul.api_gateway.cache.UserProfileCache;
+import com.thm_modul.api_gateway.resilience.DownstreamUnavailableException;
+import com.thm_modul.api_gateway.routing.Downstream;
+import com.thm_modul.api_gateway.routing.LoadAwareInstanceSelector;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
 import java.util.regex.Pattern;
 
 import java.util.Map;
@@ -21,25 +31,31 @@ import java.util.Map;
 public class UserService {
 
     private final RestTemplate restTemplate;
-
-    @Value("${app.register-service.url}")
-    private String registerServiceUrl;
-
-    @Value("${app.login-service.url}")
-    private String loginServiceUrl;
+    private final LoadAwareInstanceSelector instanceSelector;
+    private final UserProfileCache profileCache;
+    private final SingleFlight singleFlight;
 
     @Value("${app.gateway.secret}")
     private String gatewaySecret;
 
+    @Value("${app.user-batch.max-ids:1000}")
+    private int maxBatchIds;
+
+    @Value("${app.contact-discovery.max-identifiers:2000}")
+    private int maxDiscoveryIdentifiers;
+
     /**
      * Register a new user via register service
+     * In async mode the register service only validates and queues the registration,
+     * the returned data then holds the registration ID to poll
      */
-    public Object registerUser(Map<String, String> registrationRequest) {
+    public Object registerUser(Map<String, String> registrationRequest, boolean async) {
         try {
             HttpHeaders headers = createInternalHeaders();
             HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(registrationRequest, headers);
 
-            String url = registerServiceUrl + "/internal/v1/register";
+            String url = instanceSelector.choose(Downstream.REGISTER) + "/internal/v1/register"
+                    + (async ? "?async=true" : "");
 
             log.debug("Sending registration request to URL: {}", url);
 
@@ -52,7 +68,7 @@ public class UserService {
 
             log.debug("Registration response: {}", response.getBody());
 
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 Map<String, Object> responseBody = response.getBody();
 
                 if (Boolean.TRUE.equals(responseBody.get("success"))) {
@@ -68,24 +84,27 @@ public class UserService {
 
         } catch (IllegalArgumentException e) {
             throw e;
+        } catch (HttpServerErrorException.ServiceUnavailable e) {
+            // Register service is shedding load (async registration queue full)
+            throw new DownstreamUnavailableException(Downstream.REGISTER, "Register service overloaded");
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error communicating with register service: {}", e.getMessage(), e);
             throw new RuntimeException("Registration service unavailable");
         }
     }
 
     /**
-     * Get user profile information via login service
+     * Status of an async registration via register service
+     * Returns null if the registration ID is unknown
      */
-    public Object getUserProfile(Integer userId) {
+    public Object getRegistrationStatus(UUID registrationId) {
         try {
             HttpHeaders headers = createInternalHeaders();
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = loginServiceUrl + "/internal/v1/auth/user-info/" + userId;
-
             ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
+                    instanceSelector.choose(Downstream.REGISTER) + "/internal/v1/register/status/" + registrationId,
                     HttpMethod.GET,
                     requestEntity,
                     Map.class
@@ -96,31 +115,43 @@ public class UserService {
 
                 if (Boolean.TRUE.equals(responseBody.get("success"))) {
                     return responseBody.get("data");
-                } else {
-                    return null;
                 }
             }
 
-            return null;
+            throw new RuntimeException("Invalid response from register service");
 
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
         } catch (Exception e) {
-            log.error("Error getting user profile for ID {}: {}", userId, e.getMessage(), e);
-            throw new RuntimeException("Failed to retrieve user profile");
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error getting registration status {}: {}", registrationId, e.getMessage(), e);
+            throw new RuntimeException("Registration service unavailable");
         }
     }
 
     /**
-     * Get public user information by ID
+     * Check whether a username and/or email is still free via register service
+     * Answered from the register service's in-memory filter, cheap enough to call on every keystroke
      */
-    public Object getUserById(Integer userId) {
+    public Object checkAvailability(String userName, String email) {
+        if ((userName == null || userName.isBlank()) && (email == null || email.isBlank())) {
+            throw new IllegalArgumentException("Username or email is required");
+        }
+
         try {
             HttpHeaders headers = createInternalHeaders();
             HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            String url = loginServiceUrl + "/internal/v1/auth/user-info/" + userId;
+            UriComponentsBuilder path = UriComponentsBuilder.fromPath("/internal/v1/register/availability");
+            if (userName != null && !userName.isBlank()) {
+                path.queryParam("userName", userName.trim());
+            }
+            if (email != null && !email.isBlank()) {
+                path.queryParam("email", email.trim());
+            }
 
             ResponseEntity<Map> response = restTemplate.exchange(
-                    url,
+                    instanceSelector.choose(Downstream.REGISTER) + path.encode().toUriString(),
                     HttpMethod.GET,
                     requestEntity,
                     Map.class
@@ -130,28 +161,273 @@ public class UserService {
                 Map<String, Object> responseBody = response.getBody();
 
                 if (Boolean.TRUE.equals(responseBody.get("success"))) {
-                    Map<String, Object> userData = (Map<String, Object>) responseBody.get("data");
-
-                    // Return only public information
-                    return Map.of(
-                            "userId", userData.get("userId"),
-                            "username", userData.get("username")
-                            // Email is not included for privacy
-                    );
+                    return responseBody.get("data");
                 }
             }
 
-            return null;
+            throw new RuntimeException("Invalid response from register service");
 
+        } catch (HttpClientErrorException.BadRequest e) {
+            throw new IllegalArgumentException("Invalid username or email format");
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error checking availability: {}", e.getMessage(), e);
+            throw new RuntimeException("Availability check unavailable");
+        }
+    }
+
+    /**
+     * Get user profile information
+     * Served from the gateway profile cache, only a miss goes to the login service
+     * Returns null if the user does not exist
+     */
+    public UserProfileCache.CachedProfile getUserProfile(Integer userId) {
+        UserProfileCache.CachedProfile cached = profileCache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            Map<String, Object> userData = fetchUserInfo(userId);
+            return userData != null ? profileCache.put(userId, userData) : null;
+
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error getting user profile for ID {}: {}", userId, e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve user profile");
+        }
+    }
+
+    /**
+     * Delete the user's account via login service
+     * The account is disabled at once, its messages are purged in the background
+     * @return false if the user does not exist
+     */
+    public boolean deleteAccount(Integer userId) {
+        try {
+            HttpHeaders headers = createInternalHeaders();
+            HttpEntity<String> requestEntity = new HttpEntity<>(headers);
+
+            ResponseEntity<Map> response = restTemplate.exchange(
+                    instanceSelector.choose(Downstream.LOGIN) + "/internal/v1/auth/users/" + userId,
+                    HttpMethod.DELETE,
+                    requestEntity,
+                    Map.class
+            );
+
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null
+                    && Boolean.TRUE.equals(response.getBody().get("success"))) {
+                profileCache.evict(userId);
+                return true;
+            }
+
+            throw new RuntimeException("Invalid response from login service");
+
+        } catch (HttpClientErrorException.NotFound e) {
+            profileCache.evict(userId);
+            return false;
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error deleting account of user {}: {}", userId, e.getMessage(), e);
+            throw new RuntimeException("Account deletion unavailable");
+        }
+    }
+
+    /**
+     * Get public user information by ID
+     * Uses the same cached profile, the caller only exposes its public representation
+     */
+    public UserProfileCache.CachedProfile getUserById(Integer userId) {
+        try {
+            return getUserProfile(userId);
+
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.warn("Error getting user by ID {}: {}", userId, e.getMessage());
             return null;
         }
     }
 
     /**
-     * Search users by username (placeholder implementation)
-     * In a real implementation, this might search a user directory service
+     * Get public user information for many users at once
+     * Cached profiles are used as they are, all misses are resolved with one batch call to the login service
+     * @return "users" (public profiles in request order) and "missingIds"
+     */
+    public Map<String, Object> getUsersBatch(List<Integer> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one user ID is required");
+        }
+        if (userIds.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " user IDs per request");
+        }
+
+        Set<Integer> ids = new LinkedHashSet<>(userIds);
+        ids.remove(null);
+
+        Map<Integer, UserProfileCache.CachedProfile> profiles = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (Integer userId : ids) {
+            UserProfileCache.CachedProfile cached = profileCache.get(userId);
+            if (cached != null) {
+                profiles.put(userId, cached);
+            } else {
+                misses.add(userId);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            try {
+                for (Map<String, Object> userData : fetchUsersBatch(misses)) {
+                    Integer userId = ((Number) userData.get("userId")).intValue();
+                    profiles.put(userId, profileCache.put(userId, userData));
+                }
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Exception e) {
+                DownstreamUnavailableException.rethrowIfUnavailable(e);
+                log.error("Error in batch user lookup of {} IDs: {}", misses.size(), e.getMessage(), e);
+                throw new RuntimeException("Failed to retrieve user information");
+            }
+        }
+
+        List<Map<String, Object>> users = new ArrayList<>(profiles.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer userId : ids) {
+            UserProfileCache.CachedProfile profile = profiles.get(userId);
+            if (profile != null) {
+                users.add(profile.publicProfile());
+            } else {
+                missingIds.add(userId);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("users", users);
+        result.put("missingIds", missingIds);
+        return result;
+    }
+
+    /**
+     * Find which address book entries belong to registered users via login service
+     * One downstream call and one database query however many identifiers are sent
+     * The identifiers count against the requesting user's quota in the login service, hashed ones too
+     * @return "matches": identifier as sent, userId and username for each registered contact
+     * @throws ContactDiscoveryThrottledException when the user's quota is used up
+     */
+    public Object discoverContacts(Integer requestingUserId, List<String> identifiers, List<String> identifierHashes) {
+        int requested = (identifiers != null ? identifiers.size() : 0)
+                + (identifierHashes != null ? identifierHashes.size() : 0);
+        if (requested == 0) {
+            throw new IllegalArgumentException("At least one identifier is required");
+        }
+        if (requested > maxDiscoveryIdentifiers) {
+            throw new IllegalArgumentException("At most " + maxDiscoveryIdentifiers + " identifiers per request");
+        }
+
+        try {
+            HttpHeaders headers = createInternalHeaders();
+            Map<String, Object> body = new HashMap<>();
+            body.put("requesterId", requestingUserId);
+            body.put("identifiers", identifiers != null ? identifiers : List.of());
+            body.put("identifierHashes", identifierHashes != null ? identifierHashes : List.of());
+            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+
+            ResponseEntity<Map> response = restTemplate.exchange(
+                    instanceSelector.choose(Downstream.LOGIN) + "/internal/v1/auth/users/discover",
+                    HttpMethod.POST,
+                    requestEntity,
+                    Map.class
+            );
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Map<String, Object> responseBody = response.getBody();
+
+                if (Boolean.TRUE.equals(responseBody.get("success"))) {
+                    return responseBody.get("data");
+                } else {
+                    String error = (String) responseBody.get("error");
+                    throw new IllegalArgumentException(error != null ? error : "Contact discovery failed");
+                }
+            }
+
+            throw new RuntimeException("Invalid response from login service");
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            String retryAfter = e.getResponseHeaders() != null
+                    ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)
+                    : null;
+            throw new ContactDiscoveryThrottledException("Contact discovery quota exceeded", retryAfter);
+        } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
+            log.error("Error discovering {} contacts: {}", requested, e.getMessage(), e);
+            throw new RuntimeException("Contact discovery unavailable");
+        }
+    }
+
+    /**
+     * Load user info for several users from the login service in one call
+     */
+    private List<Map<String, Object>> fetchUsersBatch(List<Integer> userIds) {
+        HttpHeaders headers = createInternalHeaders();
+        HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(Map.of("userIds", userIds), headers);
+
+        ResponseEntity<Map> response = restTemplate.exchange(
+                instanceSelector.choose(Downstream.LOGIN) + "/internal/v1/auth/users/batch",
+                HttpMethod.POST,
+                requestEntity,
+                Map.class
+        );
+
+        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+            Map<String, Object> responseBody = response.getBody();
+
+            if (Boolean.TRUE.equals(responseBody.get("success"))) {
+                Map<String, Object> data = (Map<String, Object>) responseBody.get("data");
+                return (List<Map<String, Object>>) data.get("users");
+            } else {
+                String error = (String) responseBody.get("error");
+                throw new IllegalArgumentException(error != null ? error : "Batch user lookup failed");
+            }
+        }
+
+        throw new RuntimeException("Invalid response from login service");
+    }
+
+    /**
+     * Load user info from the login service, null if the user is unknown
+     */
+    private Map<String, Object> fetchUserInfo(Integer userId) {
+        HttpHeaders headers = createInternalHeaders();
+        HttpEntity<String> requestEntity = new HttpEntity<>(headers);
+
+        String path = "/internal/v1/auth/user-info/" + userId;
+
+        // User info is the same for every caller, so concurrent misses for one user share a single call
+        ResponseEntity<Map> response = singleFlight.execute("login-service:" + path, () -> restTemplate.exchange(
+                instanceSelector.choose(Downstream.LOGIN) + path,
+                HttpMethod.GET,
+                requestEntity,
+                Map.class
+        ));
+
+        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+            Map<String, Object> responseBody = response.getBody();
+
+            if (Boolean.TRUE.equals(responseBody.get("success"))) {
+                return (Map<String, Object>) responseBody.get("data");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Search users by username prefix via login service
+     * Backed by the login service's in-memory prefix index
      */
     public Object searchUsers(String query, int limit) {
         // Validate query
@@ -164,16 +440,40 @@ public class UserService {
         }
 
         try {
-            log.debug("User search not fully implemented - query: '{}', limit: {}", query, limit);
+            HttpHeaders headers = createInternalHeaders();
+            HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-            // Return empty results for now
-            return Map.of(
-                    "query", query,
-                    "results", java.util.List.of(),
-                    "totalCount", 0
-            );
+            String path = UriComponentsBuilder.fromPath("/internal/v1/auth/users/search")
+                    .queryParam("query", query.trim())
+                    .queryParam("limit", limit)
+                    .encode()
+                    .toUriString();
+
+            // Autocomplete sends the same prefix from many clients at once
+            ResponseEntity<Map> response = singleFlight.execute("login-service:" + path, () -> restTemplate.exchange(
+                    instanceSelector.choose(Downstream.LOGIN) + path,
+                    HttpMethod.GET,
+                    requestEntity,
+                    Map.class
+            ));
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Map<String, Object> responseBody = response.getBody();
+
+                if (Boolean.TRUE.equals(responseBody.get("success"))) {
+                    return responseBody.get("data");
+                } else {
+                    String error = (String) responseBody.get("error");
+                    throw new IllegalArgumentException(error != null ? error : "User search failed");
+                }
+            }
+
+            throw new RuntimeException("Invalid response from login service");
 
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
+            DownstreamUnavailableException.rethrowIfUnavailable(e);
             log.error("Error searching users: {}", e.getMessage(), e);
             throw new RuntimeException("User search service unavailable");
         }
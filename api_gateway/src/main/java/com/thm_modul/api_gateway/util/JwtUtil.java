@@ -1,15 +1,16 @@
 package com.thm_modul.api_gateway.util;
 
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import com.thm_modul.jwt_codec.Hs256JwtCodec;
+import com.thm_modul.jwt_codec.InvalidTokenException;
+import com.thm_modul.jwt_codec.JwtClaims;
+import com.thm_modul.jwt_codec.TokenExpiredException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.function.Function;
 
 @Slf4j
 @Component
@@ -18,91 +19,74 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
-    private Key key;
+    private Hs256JwtCodec codec;
 
     /**
-     * Initialize the signing key after properties are loaded
+     * Initialize the codec after properties are loaded
      */
     @PostConstruct
     public void init() {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.codec = new Hs256JwtCodec(secret.getBytes(StandardCharsets.UTF_8));
         log.debug("JWT utility initialized for API Gateway");
     }
 
     /**
-     * Extract username from JWT token
+     * Validate a token and return its claims in a single parse - main method used by the authentication filter
+     * @return claims, or null if the token is missing, malformed, wrongly signed or expired
      */
-    public String extractUsername(String token) {
+    public JwtClaims parseValidClaims(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            log.debug("Token is null or empty");
+            return null;
+        }
+
         try {
-            return extractClaim(token, Claims::getSubject);
+            return codec.decode(token);
+        } catch (TokenExpiredException e) {
+            log.warn("JWT token is expired: {}", e.getMessage());
+        } catch (InvalidTokenException e) {
+            log.warn("Invalid JWT token: {}", e.getMessage());
         } catch (Exception e) {
-            log.warn("Failed to extract username from token: {}", e.getMessage());
-            return null;
+            log.error("Unexpected error during JWT validation: {}", e.getMessage());
         }
+        return null;
     }
 
     /**
-     * Extract user ID from JWT token
-     * This is critical for API Gateway to identify users for downstream services
+     * Extract username from JWT token
      */
-    public Integer getUserIdFromToken(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            Object userIdObj = claims.get("userId");
-
-            if (userIdObj != null) {
-                if (userIdObj instanceof Integer) {
-                    return (Integer) userIdObj;
-                } else if (userIdObj instanceof String) {
-                    return Integer.valueOf((String) userIdObj);
-                } else if (userIdObj instanceof Number) {
-                    return ((Number) userIdObj).intValue();
-                }
-            }
-
-            log.warn("No valid userId found in token claims");
-            return null;
-
-        } catch (Exception e) {
-            log.warn("Failed to extract user ID from token: {}", e.getMessage());
-            return null;
-        }
+    public String extractUsername(String token) {
+        JwtClaims claims = parseValidClaims(token);
+        return claims != null ? claims.subject() : null;
     }
 
     /**
-     * Extract expiration date from JWT token
+     * Extract user ID from JWT token
+     * This is critical for API Gateway to identify users for downstream services
      */
-    public Date extractExpiration(String token) {
-        try {
-            return extractClaim(token, Claims::getExpiration);
-        } catch (Exception e) {
-            log.warn("Failed to extract expiration from token: {}", e.getMessage());
+    public Integer getUserIdFromToken(String token) {
+        JwtClaims claims = parseValidClaims(token);
+        if (claims == null || claims.userId() == null) {
+            log.warn("No valid userId found in token claims");
             return null;
         }
+        return claims.userId();
     }
 
     /**
-     * Extract a specific claim from JWT token
+     * Extract the token ID (jti claim) used for revocation
      */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        try {
-            final Claims claims = extractAllClaims(token);
-            return claimsResolver.apply(claims);
-        } catch (Exception e) {
-            log.warn("Failed to extract claim from token: {}", e.getMessage());
-            return null;
-        }
+    public String extractJti(String token) {
+        JwtClaims claims = parseValidClaims(token);
+        return claims != null ? claims.id() : null;
     }
 
     /**
-     * Extract all claims from JWT token
+     * Extract expiration date from JWT token
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public Date extractExpiration(String token) {
+        JwtClaims claims = parseValidClaims(token);
+        return claims != null ? new Date(claims.expiresAtMillis()) : null;
     }
 
     /**
@@ -110,8 +94,9 @@ public class JwtUtil {
      */
     public Boolean isTokenExpired(String token) {
         try {
-            Date expiration = extractExpiration(token);
-            return expiration != null && expiration.before(new Date());
+            return codec.decode(token).isExpired(System.currentTimeMillis());
+        } catch (TokenExpiredException e) {
+            return true;
         } catch (Exception e) {
             log.warn("Error checking token expiration: {}", e.getMessage());
             return true; // Consider expired if we can't determine
@@ -119,82 +104,36 @@ public class JwtUtil {
     }
 
     /**
-     * Validate JWT token - main method used by authentication filter
+     * Validate JWT token
      */
     public Boolean validateToken(String token) {
-        if (token == null || token.trim().isEmpty()) {
-            log.debug("Token is null or empty");
-            return false;
-        }
-
-        try {
-            // Parse and validate the token
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
-
-            // Additional check for expiration
-            if (isTokenExpired(token)) {
-                log.debug("Token is expired");
-                return false;
-            }
-
-            log.debug("Token validation successful");
-            return true;
-
-        } catch (MalformedJwtException e) {
-            log.warn("Invalid JWT token format: {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            log.warn("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            log.warn("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            log.warn("JWT claims string is empty: {}", e.getMessage());
-        } catch (io.jsonwebtoken.security.SecurityException e) {
-            log.warn("JWT signature validation failed: {}", e.getMessage());
-        } catch (Exception e) {
-            log.error("Unexpected error during JWT validation: {}", e.getMessage());
-        }
-
-        return false;
+        return parseValidClaims(token) != null;
     }
 
     /**
      * Get token type from claims (access vs refresh)
      */
     public String getTokenType(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            Object typeObj = claims.get("type");
-            return typeObj != null ? typeObj.toString() : "access";
-        } catch (Exception e) {
-            log.warn("Failed to extract token type: {}", e.getMessage());
+        JwtClaims claims = parseValidClaims(token);
+        if (claims == null) {
             return null;
         }
+        return claims.type() != null ? claims.type() : "access";
     }
 
     /**
      * Check if token is a refresh token
      */
     public Boolean isRefreshToken(String token) {
-        String tokenType = getTokenType(token);
-        return "refresh".equals(tokenType);
+        JwtClaims claims = parseValidClaims(token);
+        return claims != null && claims.isRefreshToken();
     }
 
     /**
      * Get remaining time until token expiration in milliseconds
      */
     public Long getTimeUntilExpiration(String token) {
-        try {
-            Date expiration = extractExpiration(token);
-            if (expiration != null) {
-                return expiration.getTime() - System.currentTimeMillis();
-            }
-            return null;
-        } catch (Exception e) {
-            log.warn("Error calculating time until expiration: {}", e.getMessage());
-            return null;
-        }
+        JwtClaims claims = parseValidClaims(token);
+        return claims != null ? claims.expiresAtMillis() - System.currentTimeMillis() : null;
     }
 }
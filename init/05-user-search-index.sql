@@ -0,0 +1,6 @@
+-- Index used by the login service to pick up newly registered users for its in-memory username search
+
+\c hypersend;
+
+CREATE INDEX IF NOT EXISTS idx_app_user_created_at
+    ON app_user(created_at);
@@ -0,0 +1,22 @@
+-- Revoked JWTs (logout), keyed by the token's jti claim
+-- Rows are only needed until the token would have expired anyway and are cleaned up by the login service
+
+\c hypersend;
+
+CREATE TABLE IF NOT EXISTS revoked_token (
+    jti VARCHAR(64) PRIMARY KEY,
+    user_id INTEGER NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT fk_revoked_token_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE CASCADE
+);
+
+-- Gateways poll for revocations newer than their last sync
+CREATE INDEX IF NOT EXISTS idx_revoked_token_revoked_at ON revoked_token(revoked_at);
+
+-- Cleanup of expired entries
+CREATE INDEX IF NOT EXISTS idx_revoked_token_expires_at ON revoked_token(expires_at);
+
+GRANT ALL PRIVILEGES ON TABLE revoked_token TO hypersend_user;
+GRANT SELECT ON TABLE revoked_token TO replicator;
@@ -0,0 +1,51 @@
+-- Normalized login identifiers: the lower-cased username and email of every user
+-- Lets the login service resolve "username or email" with a single unique index probe, case-insensitively
+-- Rows are maintained by a trigger on app_user, the application never writes them
+
+\c hypersend;
+
+CREATE TABLE IF NOT EXISTS login_identifier (
+    identifier VARCHAR(255) PRIMARY KEY,
+    user_id INTEGER NOT NULL,
+
+    CONSTRAINT fk_login_identifier_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE CASCADE
+);
+
+-- Removing a user's identifiers on update
+CREATE INDEX IF NOT EXISTS idx_login_identifier_user_id ON login_identifier(user_id);
+
+-- A username or email that only differs in case from an existing identifier is rejected
+-- with a unique violation, like a duplicate username or email
+CREATE OR REPLACE FUNCTION sync_login_identifier() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        DELETE FROM login_identifier WHERE user_id = NEW.id;
+    END IF;
+
+    INSERT INTO login_identifier (identifier, user_id) VALUES (lower(NEW.user_name), NEW.id);
+    IF lower(NEW.email) <> lower(NEW.user_name) THEN
+        INSERT INTO login_identifier (identifier, user_id) VALUES (lower(NEW.email), NEW.id);
+    END IF;
+
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_app_user_login_identifier ON app_user;
+CREATE TRIGGER trg_app_user_login_identifier
+    AFTER INSERT OR UPDATE OF user_name, email ON app_user
+    FOR EACH ROW EXECUTE FUNCTION sync_login_identifier();
+
+-- Backfill existing users, on case-insensitive collisions the oldest account keeps the identifier
+INSERT INTO login_identifier (identifier, user_id)
+SELECT identifier, user_id
+FROM (
+    SELECT lower(user_name) AS identifier, id AS user_id FROM app_user
+    UNION ALL
+    SELECT lower(email), id FROM app_user
+) identifiers
+ORDER BY user_id
+ON CONFLICT (identifier) DO NOTHING;
+
+GRANT ALL PRIVILEGES ON TABLE login_identifier TO hypersend_user;
+GRANT SELECT ON TABLE login_identifier TO replicator;
@@ -0,0 +1,55 @@
+-- Versioned change feed over app_user for services that keep a local user directory (message_service)
+-- Every insert, and every update that changes user_name or enabled, takes the next value of a global sequence,
+-- so "all changes after version N" is a single index range scan
+-- Hard deletes leave a tombstone with its own version so replicas can drop the user as well
+
+\c hypersend;
+
+CREATE SEQUENCE IF NOT EXISTS app_user_version_seq;
+
+ALTER TABLE app_user ADD COLUMN IF NOT EXISTS version BIGINT;
+UPDATE app_user SET version = nextval('app_user_version_seq') WHERE version IS NULL;
+ALTER TABLE app_user ALTER COLUMN version SET DEFAULT nextval('app_user_version_seq');
+ALTER TABLE app_user ALTER COLUMN version SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_app_user_version ON app_user(version);
+
+-- last_login and password updates are frequent and irrelevant to the directory, they keep their version
+CREATE OR REPLACE FUNCTION bump_app_user_version() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.version := nextval('app_user_version_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_app_user_version ON app_user;
+CREATE TRIGGER trg_app_user_version
+    BEFORE UPDATE ON app_user
+    FOR EACH ROW
+    WHEN (OLD.user_name IS DISTINCT FROM NEW.user_name OR OLD.enabled IS DISTINCT FROM NEW.enabled)
+    EXECUTE FUNCTION bump_app_user_version();
+
+CREATE TABLE IF NOT EXISTS deleted_user (
+    id INTEGER PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT nextval('app_user_version_seq'),
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_deleted_user_version ON deleted_user(version);
+
+CREATE OR REPLACE FUNCTION record_deleted_user() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO deleted_user (id) VALUES (OLD.id)
+    ON CONFLICT (id) DO UPDATE SET version = nextval('app_user_version_seq'), deleted_at = CURRENT_TIMESTAMP;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_app_user_deleted ON app_user;
+CREATE TRIGGER trg_app_user_deleted
+    AFTER DELETE ON app_user
+    FOR EACH ROW EXECUTE FUNCTION record_deleted_user();
+
+GRANT ALL PRIVILEGES ON TABLE deleted_user TO hypersend_user;
+GRANT USAGE, SELECT ON SEQUENCE app_user_version_seq TO hypersend_user;
+GRANT SELECT ON TABLE deleted_user TO replicator;
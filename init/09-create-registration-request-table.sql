@@ -0,0 +1,21 @@
+-- Status of registrations accepted in async mode (202 Accepted, hashing and insert run on a queue)
+-- Shared by all register_user instances, so a status poll may land on any of them
+
+\c hypersend;
+
+CREATE TABLE IF NOT EXISTS registration_request (
+    id UUID PRIMARY KEY,
+    status VARCHAR(16) NOT NULL,
+    user_id INTEGER,
+    error VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT fk_registration_request_user FOREIGN KEY (user_id) REFERENCES app_user(id) ON DELETE SET NULL
+);
+
+-- Cleanup of old entries
+CREATE INDEX IF NOT EXISTS idx_registration_request_created_at ON registration_request(created_at);
+
+GRANT ALL PRIVILEGES ON TABLE registration_request TO hypersend_user;
+GRANT SELECT ON TABLE registration_request TO replicator;
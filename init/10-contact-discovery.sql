@@ -0,0 +1,32 @@
+-- Contact discovery: clients may send SHA-256 hashes of lower-cased usernames / emails instead of the plain values
+-- The hash is kept next to each login identifier (hex, maintained by the same trigger) and indexed,
+-- so hashed lookups are index probes like plain ones
+
+\c hypersend;
+
+ALTER TABLE login_identifier ADD COLUMN IF NOT EXISTS identifier_sha256 VARCHAR(64);
+
+UPDATE login_identifier
+SET identifier_sha256 = encode(sha256(convert_to(identifier, 'UTF8')), 'hex')
+WHERE identifier_sha256 IS NULL;
+
+ALTER TABLE login_identifier ALTER COLUMN identifier_sha256 SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_login_identifier_sha256 ON login_identifier(identifier_sha256);
+
+CREATE OR REPLACE FUNCTION sync_login_identifier() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        DELETE FROM login_identifier WHERE user_id = NEW.id;
+    END IF;
+
+    INSERT INTO login_identifier (identifier, user_id, identifier_sha256)
+    VALUES (lower(NEW.user_name), NEW.id, encode(sha256(convert_to(lower(NEW.user_name), 'UTF8')), 'hex'));
+    IF lower(NEW.email) <> lower(NEW.user_name) THEN
+        INSERT INTO login_identifier (identifier, user_id, identifier_sha256)
+        VALUES (lower(NEW.email), NEW.id, encode(sha256(convert_to(lower(NEW.email), 'UTF8')), 'hex'));
+    END IF;
+
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,26 @@
+-- Queue of deleted accounts whose messages are still being removed
+-- Deleting a heavy user straight away would cascade to all of their messages in one transaction, so the login
+-- service only disables the user and queues it here; message_service deletes the messages in small batches
+-- (sent first, then received) and removes the app_user row once none are left
+-- cursor_created_at / cursor_id are the keyset position within the current stage, so a restart resumes there
+
+\c hypersend;
+
+CREATE TABLE IF NOT EXISTS user_purge (
+    user_id INTEGER PRIMARY KEY,
+    stage VARCHAR(16) NOT NULL DEFAULT 'SENT',
+    cursor_created_at TIMESTAMP,
+    cursor_id BIGINT,
+    deleted_messages BIGINT NOT NULL DEFAULT 0,
+    requested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+
+    CONSTRAINT chk_user_purge_stage CHECK (stage IN ('SENT', 'RECEIVED', 'DONE'))
+);
+
+-- Oldest open purge first
+CREATE INDEX IF NOT EXISTS idx_user_purge_open ON user_purge(requested_at) WHERE stage <> 'DONE';
+
+GRANT ALL PRIVILEGES ON TABLE user_purge TO hypersend_user;
+GRANT SELECT ON TABLE user_purge TO replicator;
@@ -0,0 +1,576 @@
+package com.thm_modul.jwt_codec;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * HS256 encoder and decoder specialised for the HyperSend claim set (JwtClaims)
+ * - One Mac per thread, created once and reused for every token
+ * - The signature is checked on per-thread scratch buffers, a forged or corrupted token allocates nothing
+ * - The payload is parsed straight into JwtClaims, unknown claims are skipped
+ * - Output is byte-compatible with the tokens jjwt produced, so existing tokens stay valid
+ * Thread-safe, one instance per secret is meant to be shared
+ */
+public final class Hs256JwtCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final int SIGNATURE_CHARS = 43;
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final int MAX_TOKEN_LENGTH = 8192;
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    // {"alg":"HS256"} - the header jjwt writes for HS256 and the only one we emit
+    private static final String HEADER = BASE64_URL.encodeToString(
+            "{\"alg\":\"HS256\"}".getBytes(StandardCharsets.US_ASCII));
+
+    private static final byte[] ALG = ascii("alg");
+    private static final byte[] SUB = ascii("sub");
+    private static final byte[] USER_ID = ascii("userId");
+    private static final byte[] TYPE = ascii("type");
+    private static final byte[] JTI = ascii("jti");
+    private static final byte[] IAT = ascii("iat");
+    private static final byte[] EXP = ascii("exp");
+
+    private static final byte[] BASE64_URL_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_URL_VALUES, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_URL_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * @param secret HMAC key, at least 256 bits like jjwt requires for HS256
+     */
+    public Hs256JwtCodec(byte[] secret) {
+        if (secret == null || secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException("HS256 secret must be at least " + MIN_SECRET_LENGTH + " bytes");
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(key));
+        // Fail fast on a JVM without HmacSHA256 instead of on the first request
+        scratch.get();
+    }
+
+    /**
+     * Sign the claims into a compact token
+     */
+    public String encode(JwtClaims claims) {
+        StringBuilder json = new StringBuilder(160).append('{');
+        if (claims.id() != null) {
+            appendString(json, "jti", claims.id());
+        }
+        if (claims.type() != null) {
+            appendString(json, "type", claims.type());
+        }
+        if (claims.userId() != null) {
+            appendNumber(json, "userId", claims.userId());
+        }
+        if (claims.subject() != null) {
+            appendString(json, "sub", claims.subject());
+        }
+        appendNumber(json, "iat", claims.issuedAt());
+        appendNumber(json, "exp", claims.expiresAt());
+        json.setCharAt(json.length() - 1, '}');
+
+        String signingInput = HEADER + '.' + BASE64_URL.encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+
+        Scratch buffers = scratch.get();
+        int length = buffers.copyAscii(signingInput, signingInput.length());
+        byte[] signature = buffers.sign(length);
+
+        return signingInput + '.' + BASE64_URL.encodeToString(signature);
+    }
+
+    /**
+     * Verify and decode a token against the current time
+     * @throws TokenExpiredException if the token is correctly signed but expired
+     * @throws InvalidTokenException for any other problem
+     */
+    public JwtClaims decode(String token) {
+        return decode(token, System.currentTimeMillis());
+    }
+
+    /**
+     * Verify and decode a token against the given time
+     */
+    public JwtClaims decode(String token, long nowMillis) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            throw new InvalidTokenException("Token is empty or too long");
+        }
+
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            throw new InvalidTokenException("Token must have three parts");
+        }
+        if (token.length() - payloadEnd - 1 != SIGNATURE_CHARS) {
+            throw new InvalidTokenException("Token signature has the wrong length");
+        }
+
+        Scratch buffers = scratch.get();
+
+        // Signature first, nothing in an unverified token is looked at beyond its shape
+        int signingLength = buffers.copyAscii(token, payloadEnd);
+        byte[] expected = buffers.sign(signingLength);
+        decodeBase64Url(token, payloadEnd + 1, token.length(), buffers.signature);
+        if (!MessageDigest.isEqual(expected, buffers.signature)) {
+            throw new InvalidTokenException("Token signature does not match");
+        }
+
+        if (headerEnd != HEADER.length() || !token.startsWith(HEADER)) {
+            checkHeader(token, headerEnd, buffers);
+        }
+
+        int payloadLength = decodeBase64Url(token, headerEnd + 1, payloadEnd, buffers.payload(payloadEnd - headerEnd));
+        JwtClaims claims = new ClaimsParser(buffers.payload, payloadLength).parseClaims();
+
+        if (claims.isExpired(nowMillis)) {
+            throw new TokenExpiredException(claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Header in another (but equivalent) encoding, e.g. with a typ field - only HS256 is accepted
+     */
+    private static void checkHeader(String token, int headerEnd, Scratch buffers) {
+        int length = decodeBase64Url(token, 0, headerEnd, buffers.payload(headerEnd));
+        if (!new ClaimsParser(buffers.payload, length).isHs256Header()) {
+            throw new InvalidTokenException("Unsupported token algorithm");
+        }
+    }
+
+    /**
+     * Decode unpadded base64url from the string range into the buffer
+     * @return number of bytes written
+     */
+    private static int decodeBase64Url(String source, int from, int to, byte[] target) {
+        int chars = to - from;
+        if (chars % 4 == 1) {
+            throw new InvalidTokenException("Invalid base64url length");
+        }
+        int length = chars / 4 * 3 + Math.max(0, chars % 4 - 1);
+        if (length > target.length) {
+            throw new InvalidTokenException("Token part too long");
+        }
+
+        int out = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            int value = c < 128 ? BASE64_URL_VALUES[c] : -1;
+            if (value < 0) {
+                throw new InvalidTokenException("Invalid base64url character");
+            }
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                target[out++] = (byte) (bits >> bitCount);
+            }
+        }
+        return out;
+    }
+
+    private static void appendString(StringBuilder json, String name, String value) {
+        json.append('"').append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append("\",");
+    }
+
+    private static void appendNumber(StringBuilder json, String name, long value) {
+        json.append('"').append(name).append("\":").append(value).append(',');
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Per-thread Mac and buffers, reused for every token handled on the thread
+     */
+    private static final class Scratch {
+
+        private final Mac mac;
+        private final byte[] expected = new byte[SIGNATURE_LENGTH];
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+        private byte[] input = new byte[512];
+        private byte[] payload = new byte[384];
+
+        private Scratch(SecretKeySpec key) {
+            try {
+                this.mac = Mac.getInstance(ALGORITHM);
+                this.mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        }
+
+        /**
+         * Copy the first length characters (base64url and dots, so ASCII) into the input buffer
+         */
+        private int copyAscii(String source, int length) {
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                input[i] = (byte) source.charAt(i);
+            }
+            return length;
+        }
+
+        private byte[] sign(int length) {
+            try {
+                mac.update(input, 0, length);
+                mac.doFinal(expected, 0);
+                return expected;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to compute token signature", e);
+            }
+        }
+
+        /**
+         * Payload buffer large enough for the given number of base64url characters
+         */
+        private byte[] payload(int chars) {
+            int needed = chars / 4 * 3 + 3;
+            if (payload.length < needed) {
+                payload = new byte[Math.max(needed, payload.length * 2)];
+            }
+            return payload;
+        }
+    }
+
+    /**
+     * Minimal JSON reader for flat token objects
+     * Only values of known claims are materialised, everything else is skipped in place
+     */
+    private static final class ClaimsParser {
+
+        private final byte[] json;
+        private final int length;
+        private int pos;
+
+        private ClaimsParser(byte[] json, int length) {
+            this.json = json;
+            this.length = length;
+        }
+
+        private JwtClaims parseClaims() {
+            String subject = null;
+            Integer userId = null;
+            String type = null;
+            String id = null;
+            long issuedAt = 0;
+            long expiresAt = -1;
+
+            expect('{');
+            if (!consumeIf('}')) {
+                do {
+                    skipWhitespace();
+                    int keyStart = pos + 1;
+                    skipString();
+                    int keyEnd = pos - 1;
+                    expect(':');
+
+                    if (keyIs(keyStart, keyEnd, SUB)) {
+                        subject = readString();
+                    } else if (keyIs(keyStart, keyEnd, USER_ID)) {
+                        userId = readUserId();
+                    } else if (keyIs(keyStart, keyEnd, TYPE)) {
+                        type = readString();
+                    } else if (keyIs(keyStart, keyEnd, JTI)) {
+                        id = readString();
+                    } else if (keyIs(keyStart, keyEnd, IAT)) {
+                        issuedAt = readLong();
+                    } else if (keyIs(keyStart, keyEnd, EXP)) {
+                        expiresAt = readLong();
+                    } else {
+                        skipValue();
+                    }
+                } while (consumeIf(','));
+                expect('}');
+            }
+            expectEnd();
+
+            if (expiresAt < 0) {
+                throw new InvalidTokenException("Token has no expiration");
+            }
+            return new JwtClaims(subject, userId, type, id, issuedAt, expiresAt);
+        }
+
+        private boolean isHs256Header() {
+            boolean hs256 = false;
+            expect('{');
+            if (!consumeIf('}')) {
+                do {
+                    skipWhitespace();
+                    int keyStart = pos + 1;
+                    skipString();
+                    int keyEnd = pos - 1;
+                    expect(':');
+
+                    if (keyIs(keyStart, keyEnd, ALG)) {
+                        hs256 = "HS256".equals(readString());
+                    } else {
+                        skipValue();
+                    }
+                } while (consumeIf(','));
+                expect('}');
+            }
+            expectEnd();
+            return hs256;
+        }
+
+        private boolean keyIs(int start, int end, byte[] name) {
+            if (end - start != name.length) {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                if (json[start + i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String readString() {
+            skipWhitespace();
+            if (peek() == 'n') {
+                expectLiteral("null");
+                return null;
+            }
+            expect('"');
+            int start = pos;
+            while (pos < length) {
+                byte b = json[pos];
+                if (b == '"') {
+                    String value = new String(json, start, pos - start, StandardCharsets.UTF_8);
+                    pos++;
+                    return value;
+                }
+                if (b == '\\') {
+                    return readEscapedString(start);
+                }
+                pos++;
+            }
+            throw new InvalidTokenException("Unterminated string in token");
+        }
+
+        private String readEscapedString(int start) {
+            StringBuilder value = new StringBuilder(new String(json, start, pos - start, StandardCharsets.UTF_8));
+            int runStart = pos;
+            while (pos < length) {
+                byte b = json[pos];
+                if (b == '"') {
+                    value.append(new String(json, runStart, pos - runStart, StandardCharsets.UTF_8));
+                    pos++;
+                    return value.toString();
+                }
+                if (b != '\\') {
+                    pos++;
+                    continue;
+                }
+
+                value.append(new String(json, runStart, pos - runStart, StandardCharsets.UTF_8));
+                if (pos + 1 >= length) {
+                    break;
+                }
+                byte escaped = json[pos + 1];
+                pos += 2;
+                switch (escaped) {
+                    case '"' -> value.append('"');
+                    case '\\' -> value.append('\\');
+                    case '/' -> value.append('/');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > length) {
+                            throw new InvalidTokenException("Invalid unicode escape in token");
+                        }
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(json[pos++], 16);
+                            if (digit < 0) {
+                                throw new InvalidTokenException("Invalid unicode escape in token");
+                            }
+                            code = (code << 4) | digit;
+                        }
+                        value.append((char) code);
+                    }
+                    default -> throw new InvalidTokenException("Invalid escape in token");
+                }
+                runStart = pos;
+            }
+            throw new InvalidTokenException("Unterminated string in token");
+        }
+
+        private Integer readUserId() {
+            skipWhitespace();
+            byte b = peek();
+            if (b == 'n') {
+                expectLiteral("null");
+                return null;
+            }
+            try {
+                return b == '"' ? Integer.valueOf(readString()) : Math.toIntExact(readLong());
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new InvalidTokenException("Invalid userId claim");
+            }
+        }
+
+        private long readLong() {
+            skipWhitespace();
+            boolean negative = consumeIf('-');
+            int start = pos;
+            long value = 0;
+            while (pos < length && json[pos] >= '0' && json[pos] <= '9') {
+                if (pos - start >= 18) {
+                    throw new InvalidTokenException("Number too large in token");
+                }
+                value = value * 10 + (json[pos++] - '0');
+            }
+            if (pos == start) {
+                throw new InvalidTokenException("Expected a number in token");
+            }
+            // Numeric dates are integral, reject fractions and exponents rather than guessing
+            if (pos < length && (json[pos] == '.' || json[pos] == 'e' || json[pos] == 'E')) {
+                throw new InvalidTokenException("Expected an integer in token");
+            }
+            return negative ? -value : value;
+        }
+
+        private void skipValue() {
+            skipWhitespace();
+            byte b = peek();
+            switch (b) {
+                case '"' -> skipString();
+                case '{', '[' -> skipContainer();
+                case 't' -> expectLiteral("true");
+                case 'f' -> expectLiteral("false");
+                case 'n' -> expectLiteral("null");
+                default -> {
+                    int start = pos;
+                    while (pos < length && isNumberChar(json[pos])) {
+                        pos++;
+                    }
+                    if (pos == start) {
+                        throw new InvalidTokenException("Unexpected value in token");
+                    }
+                }
+            }
+        }
+
+        private void skipString() {
+            expect('"');
+            while (pos < length) {
+                byte b = json[pos++];
+                if (b == '\\') {
+                    pos++;
+                } else if (b == '"') {
+                    return;
+                }
+            }
+            throw new InvalidTokenException("Unterminated string in token");
+        }
+
+        private void skipContainer() {
+            int depth = 0;
+            while (pos < length) {
+                byte b = json[pos];
+                if (b == '"') {
+                    skipString();
+                    continue;
+                }
+                pos++;
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw new InvalidTokenException("Unterminated object in token");
+        }
+
+        private void expectLiteral(String literal) {
+            for (int i = 0; i < literal.length(); i++) {
+                if (pos >= length || json[pos++] != literal.charAt(i)) {
+                    throw new InvalidTokenException("Unexpected value in token");
+                }
+            }
+        }
+
+        private void expect(char c) {
+            skipWhitespace();
+            if (pos >= length || json[pos] != c) {
+                throw new InvalidTokenException("Malformed token JSON, expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private boolean consumeIf(char c) {
+            skipWhitespace();
+            if (pos < length && json[pos] == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expectEnd() {
+            skipWhitespace();
+            if (pos != length) {
+                throw new InvalidTokenException("Trailing data in token JSON");
+            }
+        }
+
+        private byte peek() {
+            if (pos >= length) {
+                throw new InvalidTokenException("Unexpected end of token JSON");
+            }
+            return json[pos];
+        }
+
+        private void skipWhitespace() {
+            while (pos < length) {
+                byte b = json[pos];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private static boolean isNumberChar(byte b) {
+            return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+        }
+    }
+}
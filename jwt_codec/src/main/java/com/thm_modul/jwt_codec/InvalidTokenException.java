@@ -0,0 +1,11 @@
+package com.thm_modul.jwt_codec;
+
+/**
+ * Thrown when a token is malformed, uses another algorithm or has a wrong signature
+ */
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
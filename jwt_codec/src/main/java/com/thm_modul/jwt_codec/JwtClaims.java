@@ -0,0 +1,60 @@
+package com.thm_modul.jwt_codec;
+
+import java.util.UUID;
+
+/**
+ * The fixed claim set of HyperSend tokens
+ * - subject: username (sub)
+ * - userId: user ID, null for tokens issued without one
+ * - type: "refresh" for refresh tokens, null for access tokens
+ * - id: token ID used for revocation (jti), null for tokens issued before revocation existed
+ * - issuedAt / expiresAt: epoch seconds (iat / exp)
+ */
+public record JwtClaims(
+        String subject,
+        Integer userId,
+        String type,
+        String id,
+        long issuedAt,
+        long expiresAt
+) {
+
+    public static final String REFRESH_TYPE = "refresh";
+
+    /**
+     * Claims for a new access token with a random ID
+     */
+    public static JwtClaims access(String subject, Integer userId, long nowMillis, long ttlMillis) {
+        return issue(subject, userId, null, nowMillis, ttlMillis);
+    }
+
+    /**
+     * Claims for a new refresh token with a random ID
+     */
+    public static JwtClaims refresh(String subject, Integer userId, long nowMillis, long ttlMillis) {
+        return issue(subject, userId, REFRESH_TYPE, nowMillis, ttlMillis);
+    }
+
+    private static JwtClaims issue(String subject, Integer userId, String type, long nowMillis, long ttlMillis) {
+        return new JwtClaims(
+                subject,
+                userId,
+                type,
+                UUID.randomUUID().toString(),
+                nowMillis / 1000,
+                (nowMillis + ttlMillis) / 1000
+        );
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH_TYPE.equals(type);
+    }
+
+    public long expiresAtMillis() {
+        return expiresAt * 1000;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis > expiresAtMillis();
+    }
+}
@@ -0,0 +1,21 @@
+package com.thm_modul.jwt_codec;
+
+/**
+ * Thrown when a correctly signed token is past its expiration time
+ */
+public class TokenExpiredException extends InvalidTokenException {
+
+    private final JwtClaims claims;
+
+    public TokenExpiredException(JwtClaims claims) {
+        super("Token expired at " + claims.expiresAtMillis());
+        this.claims = claims;
+    }
+
+    /**
+     * Claims of the expired token, e.g. to revoke it anyway
+     */
+    public JwtClaims getClaims() {
+        return claims;
+    }
+}
@@ -0,0 +1,416 @@
+package com.thm_modul.jwt_codec;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hs256JwtCodec against hand-built tokens (signed with the same secret, so only the part under test is wrong)
+ * and against jjwt 0.11.5, which issued and verified the tokens before the codec
+ */
+class Hs256JwtCodecTest {
+
+    private static final byte[] SECRET =
+            "mySecretKey123456789012345678901234567890".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_SECRET =
+            "anotherSecretKey1234567890123456789012345".getBytes(StandardCharsets.UTF_8);
+
+    private static final String HS256_HEADER = "{\"alg\":\"HS256\"}";
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long HOUR = 3_600_000L;
+
+    private final Hs256JwtCodec codec = new Hs256JwtCodec(SECRET);
+    private final Key jjwtKey = Keys.hmacShaKeyFor(SECRET);
+
+    // Round trip
+
+    @Test
+    void decodesWhatItEncodes() {
+        JwtClaims access = JwtClaims.access("alice", 42, NOW, HOUR);
+        JwtClaims refresh = JwtClaims.refresh("alice", 42, NOW, HOUR);
+
+        assertEquals(access, codec.decode(codec.encode(access), NOW));
+        assertEquals(refresh, codec.decode(codec.encode(refresh), NOW));
+        assertTrue(codec.decode(codec.encode(refresh), NOW).isRefreshToken());
+    }
+
+    @Test
+    void keepsOptionalClaimsAbsent() {
+        JwtClaims claims = new JwtClaims("alice", null, null, null, NOW / 1000, NOW / 1000 + 60);
+
+        JwtClaims decoded = codec.decode(codec.encode(claims), NOW);
+
+        assertEquals(claims, decoded);
+        assertNull(decoded.userId());
+        assertNull(decoded.id());
+        assertFalse(decoded.isRefreshToken());
+    }
+
+    @Test
+    void rejectsSecretsShorterThan256Bits() {
+        assertThrows(IllegalArgumentException.class, () -> new Hs256JwtCodec(new byte[31]));
+        assertThrows(IllegalArgumentException.class, () -> new Hs256JwtCodec(null));
+    }
+
+    // Signature
+
+    @Test
+    void rejectsTamperedSignature() {
+        String token = codec.encode(JwtClaims.access("alice", 42, NOW, HOUR));
+        int signatureStart = token.lastIndexOf('.') + 1;
+        // The first character carries six signature bits (the last one has two unused bits)
+        char replacement = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signatureStart) + replacement + token.substring(signatureStart + 1);
+
+        assertInvalid(tampered, "Token signature does not match");
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String token = codec.encode(JwtClaims.access("alice", 42, NOW, HOUR));
+        String[] parts = token.split("\\.");
+        String forgedPayload = base64Url("{\"userId\":1,\"sub\":\"admin\",\"iat\":1700000000,\"exp\":1700003600}");
+
+        assertInvalid(parts[0] + '.' + forgedPayload + '.' + parts[2], "Token signature does not match");
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherSecret() {
+        String token = new Hs256JwtCodec(OTHER_SECRET).encode(JwtClaims.access("alice", 42, NOW, HOUR));
+
+        assertInvalid(token, "Token signature does not match");
+    }
+
+    @Test
+    void rejectsSignatureOfWrongLength() {
+        String token = codec.encode(JwtClaims.access("alice", 42, NOW, HOUR));
+
+        assertInvalid(token + "A", "Token signature has the wrong length");
+        assertInvalid(token.substring(0, token.length() - 1), "Token signature has the wrong length");
+    }
+
+    // Algorithm
+
+    @Test
+    void rejectsUnsignedAlgNoneToken() {
+        String unsigned = base64Url("{\"alg\":\"none\"}") + '.' + base64Url(payload("alice")) + '.';
+
+        assertInvalid(unsigned, "Token signature has the wrong length");
+    }
+
+    @Test
+    void rejectsAlgNoneEvenWithValidHmac() {
+        assertInvalid(signed("{\"alg\":\"none\"}", payload("alice")), "Unsupported token algorithm");
+    }
+
+    @Test
+    void rejectsOtherAlgorithms() {
+        for (String alg : new String[]{"HS384", "HS512", "RS256", "ES256", "hs256", ""}) {
+            assertInvalid(signed("{\"alg\":\"" + alg + "\"}", payload("alice")), "Unsupported token algorithm");
+        }
+        assertInvalid(signed("{\"typ\":\"JWT\"}", payload("alice")), "Unsupported token algorithm");
+        assertInvalid(signed("{\"alg\":null}", payload("alice")), "Unsupported token algorithm");
+        assertInvalid(signed("{}", payload("alice")), "Unsupported token algorithm");
+    }
+
+    @Test
+    void acceptsEquivalentHs256Headers() {
+        assertEquals("alice", codec.decode(signed("{\"typ\":\"JWT\",\"alg\":\"HS256\"}", payload("alice")), NOW).subject());
+        assertEquals("alice", codec.decode(signed("{ \"alg\" : \"HS256\" }", payload("alice")), NOW).subject());
+    }
+
+    // Shape and base64url
+
+    @Test
+    void rejectsWrongNumberOfParts() {
+        String token = codec.encode(JwtClaims.access("alice", 42, NOW, HOUR));
+        String[] parts = token.split("\\.");
+
+        assertInvalid(parts[0], "Token must have three parts");
+        assertInvalid(parts[0] + '.' + parts[1], "Token must have three parts");
+        assertInvalid(token + '.' + parts[2], "Token must have three parts");
+        assertInvalid(parts[0] + '.' + parts[1] + '.' + parts[1] + '.' + parts[2], "Token must have three parts");
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedTokens() {
+        assertInvalid(null, "Token is empty or too long");
+        assertInvalid("", "Token is empty or too long");
+        assertInvalid("a".repeat(8193), "Token is empty or too long");
+    }
+
+    @Test
+    void rejectsInvalidBase64UrlCharacters() {
+        String token = codec.encode(JwtClaims.access("alice", 42, NOW, HOUR));
+        int signatureStart = token.lastIndexOf('.') + 1;
+
+        // Standard base64 and padding are not base64url
+        assertInvalid(signedRaw(base64Url(HS256_HEADER), base64Url(payload("alice")).substring(1) + "+"),
+                "Invalid base64url character");
+        assertInvalid(signedRaw(base64Url(HS256_HEADER), base64Url(payload("alice")).substring(1) + "="),
+                "Invalid base64url character");
+        assertInvalid(token.substring(0, signatureStart) + '*' + token.substring(signatureStart + 1),
+                "Invalid base64url character");
+    }
+
+    @Test
+    void rejectsImpossibleBase64UrlLength() {
+        // Unpadded base64url never ends with a single character in the last group
+        String payload = base64Url(payload("alice"));
+        String impossible = payload + "A".repeat((5 - payload.length() % 4) % 4);
+
+        assertInvalid(signedRaw(base64Url(HS256_HEADER), impossible), "Invalid base64url length");
+    }
+
+    @Test
+    void rejectsPayloadThatIsNotAJsonObject() {
+        assertInvalid(signed(HS256_HEADER, "[\"alice\"]"), "Malformed token JSON, expected '{'");
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"alice\",\"exp\":1700003600"), "Malformed token JSON, expected '}'");
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"alice\",\"exp\":1700003600}x"), "Trailing data in token JSON");
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"alice,\"exp\":1700003600}"), "Malformed token JSON, expected '}'");
+    }
+
+    // Expiry
+
+    @Test
+    void rejectsExpiredTokenButKeepsItsClaims() {
+        JwtClaims claims = JwtClaims.refresh("alice", 42, NOW - 2 * HOUR, HOUR);
+        String token = codec.encode(claims);
+
+        TokenExpiredException e = assertThrows(TokenExpiredException.class, () -> codec.decode(token, NOW));
+
+        assertEquals(claims, e.getClaims());
+    }
+
+    @Test
+    void expiresAfterTheExpirationSecond() {
+        String token = codec.encode(new JwtClaims("alice", 42, null, null, NOW / 1000, NOW / 1000 + 60));
+        long expiresAt = NOW + 60_000;
+
+        assertEquals("alice", codec.decode(token, expiresAt).subject());
+        assertThrows(TokenExpiredException.class, () -> codec.decode(token, expiresAt + 1));
+    }
+
+    @Test
+    void rejectsTokenWithoutExpiration() {
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"alice\",\"iat\":1700000000}"), "Token has no expiration");
+    }
+
+    @Test
+    void rejectsNonIntegralDates() {
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"alice\",\"exp\":1700003600.5}"), "Expected an integer in token");
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"alice\",\"exp\":1.7e9}"), "Expected an integer in token");
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"alice\",\"exp\":\"1700003600\"}"), "Expected a number in token");
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"alice\",\"exp\":1234567890123456789}"), "Number too large in token");
+    }
+
+    // JSON strings
+
+    @Test
+    void roundTripsCharactersThatNeedEscaping() {
+        String subject = "quote\" backslash\\ slash/ tab\t newline\n control\u0001 umlautü euro€ emoji😀";
+        JwtClaims claims = new JwtClaims(subject, 42, null, "id\"with\\escapes", NOW / 1000, NOW / 1000 + 60);
+
+        assertEquals(claims, codec.decode(codec.encode(claims), NOW));
+    }
+
+    @Test
+    void decodesEscapesWrittenByOtherEncoders() {
+        String json = "{\"sub\":\"a\\/b \\u00fc \\ud83d\\ude00 \\\"q\\\" \\b\\f\\r\",\"exp\":1700003600}";
+
+        assertEquals("a/b ü 😀 \"q\" \b\f\r", codec.decode(signed(HS256_HEADER, json), NOW).subject());
+    }
+
+    @Test
+    void rejectsInvalidEscapes() {
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"a\\x\",\"exp\":1700003600}"), "Invalid escape in token");
+        assertInvalid(signed(HS256_HEADER, "{\"sub\":\"a\\u00zz\",\"exp\":1700003600}"), "Invalid unicode escape in token");
+        assertInvalid(signed(HS256_HEADER, "{\"exp\":1700003600,\"sub\":\"a\\u00"), "Invalid unicode escape in token");
+        assertInvalid(signed(HS256_HEADER, "{\"exp\":1700003600,\"sub\":\"alice"), "Unterminated string in token");
+    }
+
+    // Claims
+
+    @Test
+    void skipsUnknownClaims() {
+        String json = "{ \"iss\" : \"hypersend\", \"nbf\": 1.7E9, \"admin\": true, \"guest\": false, \"aud\": null,"
+                + " \"roles\": [\"user\", \"}]\\\"\", {\"nested\": [1, 2, {}]}],"
+                + " \"profile\": {\"name\": \"sub\", \"exp\": 1},"
+                + " \"sub\": \"alice\", \"userId\": 42, \"exp\": 1700003600 }";
+
+        JwtClaims claims = codec.decode(signed(HS256_HEADER, json), NOW);
+
+        assertEquals("alice", claims.subject());
+        assertEquals(42, claims.userId());
+        assertEquals(1_700_003_600L, claims.expiresAt());
+    }
+
+    @Test
+    void readsUserIdWrittenAsString() {
+        String json = "{\"sub\":\"alice\",\"userId\":\"42\",\"exp\":1700003600}";
+
+        assertEquals(42, codec.decode(signed(HS256_HEADER, json), NOW).userId());
+    }
+
+    @Test
+    void rejectsUserIdThatIsNotAnInteger() {
+        assertInvalid(signed(HS256_HEADER, "{\"userId\":\"abc\",\"exp\":1700003600}"), "Invalid userId claim");
+        assertInvalid(signed(HS256_HEADER, "{\"userId\":4294967296,\"exp\":1700003600}"), "Invalid userId claim");
+    }
+
+    // Compatibility with jjwt
+
+    @Test
+    void decodesAccessTokensIssuedByJjwt() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 42);
+
+        JwtClaims decoded = codec.decode(jjwtToken(claims, "alice"), NOW);
+
+        assertEquals("alice", decoded.subject());
+        assertEquals(42, decoded.userId());
+        assertNull(decoded.type());
+        assertNull(decoded.id());
+        assertEquals(NOW / 1000, decoded.issuedAt());
+        assertEquals((NOW + HOUR) / 1000, decoded.expiresAt());
+    }
+
+    @Test
+    void decodesRefreshTokensIssuedByJjwt() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("type", "refresh");
+        claims.put("userId", 42);
+
+        JwtClaims decoded = codec.decode(jjwtToken(claims, "alice"), NOW);
+
+        assertTrue(decoded.isRefreshToken());
+        assertEquals(42, decoded.userId());
+    }
+
+    @Test
+    void decodesJjwtTokensWithoutUserIdAndWithEscapedSubject() {
+        String subject = "al\"ice\\ ü\n";
+
+        JwtClaims decoded = codec.decode(jjwtToken(new HashMap<>(), subject), NOW);
+
+        assertEquals(subject, decoded.subject());
+        assertNull(decoded.userId());
+    }
+
+    @Test
+    void rejectsJjwtTokensSignedWithAnotherSecret() {
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(NOW + HOUR))
+                .signWith(Keys.hmacShaKeyFor(OTHER_SECRET), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertInvalid(token, "Token signature does not match");
+    }
+
+    @Test
+    void rejectsJjwtTokensWithAnotherAlgorithm() {
+        byte[] secret512 = (new String(SECRET, StandardCharsets.UTF_8) + "-padded-to-512-bits-for-hs512!!")
+                .getBytes(StandardCharsets.UTF_8);
+        String token = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(NOW + HOUR))
+                .signWith(Keys.hmacShaKeyFor(secret512), SignatureAlgorithm.HS512)
+                .compact();
+
+        assertThrows(InvalidTokenException.class, () -> new Hs256JwtCodec(secret512).decode(token, NOW));
+    }
+
+    @Test
+    void issuesTokensThatJjwtVerifies() {
+        // jjwt checks expiry against the real clock, so the token has to be valid now
+        long now = System.currentTimeMillis();
+        JwtClaims issued = JwtClaims.refresh("al\"ice\\ ü", 42, now, HOUR);
+
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(jjwtKey)
+                .build()
+                .parseClaimsJws(codec.encode(issued))
+                .getBody();
+
+        assertEquals(issued.subject(), claims.getSubject());
+        assertEquals(issued.id(), claims.getId());
+        assertEquals("refresh", claims.get("type"));
+        assertEquals(42, Integer.valueOf(claims.get("userId").toString()));
+        assertEquals(issued.issuedAt() * 1000, claims.getIssuedAt().getTime());
+        assertEquals(issued.expiresAtMillis(), claims.getExpiration().getTime());
+    }
+
+    @Test
+    void issuesTheSameHeaderAsJjwt() {
+        String jjwt = jjwtToken(new HashMap<>(), "alice");
+        String ours = codec.encode(JwtClaims.access("alice", null, NOW, HOUR));
+
+        assertEquals(jjwt.substring(0, jjwt.indexOf('.')), ours.substring(0, ours.indexOf('.')));
+    }
+
+    // Helpers
+
+    /**
+     * As the services' JwtUtil.createToken did before the codec
+     */
+    private String jjwtToken(Map<String, Object> claims, String subject) {
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(subject)
+                .setIssuedAt(new Date(NOW))
+                .setExpiration(new Date(NOW + HOUR))
+                .signWith(jjwtKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private void assertInvalid(String token, String message) {
+        InvalidTokenException e = assertThrows(InvalidTokenException.class, () -> codec.decode(token, NOW));
+        assertFalse(e instanceof TokenExpiredException, "expected an invalid token, not an expired one");
+        assertEquals(message, e.getMessage());
+    }
+
+    private static String payload(String subject) {
+        return "{\"sub\":\"" + subject + "\",\"userId\":42,\"iat\":1700000000,\"exp\":1700003600}";
+    }
+
+    private static String signed(String headerJson, String payloadJson) {
+        return signedRaw(base64Url(headerJson), base64Url(payloadJson));
+    }
+
+    /**
+     * Correctly signed over whatever the two parts contain
+     */
+    private static String signedRaw(String header, String payload) {
+        String signingInput = header + '.' + payload;
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+            byte[] signature = mac.doFinal(signingInput.getBytes(StandardCharsets.UTF_8));
+            return signingInput + '.' + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String base64Url(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package com.thm_modul.jwt_codec.benchmark;
+
+import com.thm_modul.jwt_codec.Hs256JwtCodec;
+import com.thm_modul.jwt_codec.JwtClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares Hs256JwtCodec against the jjwt code path the services used before
+ * - decode: what the gateway does for every authenticated request
+ * - encode: what the login service does for every login and refresh
+ * Run with: mvn -f jwt_codec/pom.xml test-compile exec:java
+ *   -Dexec.mainClass=com.thm_modul.jwt_codec.benchmark.JwtCodecBenchmark -Dexec.classpathScope=test
+ * The GC profiler reports gc.alloc.rate.norm, the bytes allocated per operation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtCodecBenchmark {
+
+    private static final byte[] SECRET =
+            "mySecretKey123456789012345678901234567890".getBytes(StandardCharsets.UTF_8);
+
+    private Key jjwtKey;
+    private Hs256JwtCodec codec;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jjwtKey = Keys.hmacShaKeyFor(SECRET);
+        codec = new Hs256JwtCodec(SECRET);
+        token = codec.encode(JwtClaims.access("benchmark_user", 4711, System.currentTimeMillis(), 3_600_000));
+    }
+
+    @Benchmark
+    public Integer decodeJjwt() {
+        // As JwtUtil.validateToken followed by getUserIdFromToken did: a new parser and a parse per call
+        Jwts.parserBuilder().setSigningKey(jjwtKey).build().parseClaimsJws(token);
+        Claims claims = Jwts.parserBuilder().setSigningKey(jjwtKey).build().parseClaimsJws(token).getBody();
+        return Integer.valueOf(claims.get("userId").toString());
+    }
+
+    @Benchmark
+    public Integer decodeCodec() {
+        return codec.decode(token).userId();
+    }
+
+    @Benchmark
+    public String encodeJjwt() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", 4711);
+        return Jwts.builder()
+                .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
+                .setSubject("benchmark_user")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 3_600_000))
+                .signWith(jjwtKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String encodeCodec() {
+        return codec.encode(JwtClaims.access("benchmark_user", 4711, System.currentTimeMillis(), 3_600_000));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
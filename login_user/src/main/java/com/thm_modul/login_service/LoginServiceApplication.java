@@ -2,8 +2,10 @@ package com.thm_modul.login_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class LoginServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(LoginServiceApplication.class, args);
@@ -1,5 +1,6 @@
 package com.thm_modul.login_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -11,9 +12,12 @@ public class PasswordConfig {
     /**
      * Password encoder bean for validating user passwords
      * Used by AuthService for manual password verification
+     * The cost is pinned per deployment (app.password-hashing.strength, same on every login / register replica)
+     * and chosen offline with service_support's BCryptCalibration;
+     * hashes with a lower cost are upgraded on the next successful login
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.password-hashing.strength:12}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
@@ -3,16 +3,28 @@ package com.thm_modul.login_service.controller;
 import com.thm_modul.login_service.dto.*;
 import com.thm_modul.login_service.entity.User;
 import com.thm_modul.login_service.repository.UserRepository;
+import com.thm_modul.login_service.search.UserSearchService;
+import com.thm_modul.login_service.service.AccountDeletionService;
 import com.thm_modul.login_service.service.AuthService;
+import com.thm_modul.login_service.service.PasswordHashingOverloadedException;
+import com.thm_modul.login_service.service.TokenRevocationService;
+import com.thm_modul.login_service.service.UserChangeFeedService;
+import com.thm_modul.login_service.service.UserLookupService;
+import com.thm_modul.login_service.throttle.ContactDiscoveryQuota;
+import com.thm_modul.login_service.throttle.ContactDiscoveryQuotaExceededException;
+import com.thm_modul.login_service.throttle.LoginThrottle;
+import com.thm_modul.login_service.throttle.LoginThrottledException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -22,13 +34,27 @@ public class InternalAuthController {
 
     private final AuthService authService;
     private final UserRepository userRepository;
+    private final UserSearchService userSearchService;
+    private final TokenRevocationService tokenRevocationService;
+    private final LoginThrottle loginThrottle;
+    private final ContactDiscoveryQuota contactDiscoveryQuota;
+    private final UserLookupService userLookupService;
+    private final UserChangeFeedService userChangeFeedService;
+    private final AccountDeletionService accountDeletionService;
 
     @Value("${app.gateway.secret:shared_secret_key}")
     private String gatewaySecret;
 
+    @Value("${app.user-batch.max-ids:5000}")
+    private int maxBatchIds;
+
+    @Value("${app.contact-discovery.max-identifiers:5000}")
+    private int maxDiscoveryIdentifiers;
+
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<LoginResponse>> login(
             @Valid @RequestBody LoginRequest loginRequest,
+            @RequestHeader(value = "X-Client-IP", required = false) String clientIp,
             HttpServletRequest request) {
 
 
@@ -41,13 +67,23 @@ public class InternalAuthController {
         try {
             log.info("Internal login request for user: {}", loginRequest.usernameOrEmail());
 
-            LoginResponse loginResponse = authService.login(loginRequest);
+            LoginResponse loginResponse = authService.login(loginRequest, clientIp);
             return ResponseEntity.ok(ApiResponse.success("Login successful", loginResponse));
 
         } catch (BadCredentialsException e) {
             log.warn("Login failed - invalid credentials: {}", e.getMessage());
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Invalid credentials"));
+        } catch (LoginThrottledException e) {
+            log.warn("Login throttled for user: {} from {} - {}",
+                    loginRequest.usernameOrEmail(), clientIp, e.getMessage());
+            return ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error("Too many failed login attempts, please retry later"));
+        } catch (PasswordHashingOverloadedException e) {
+            log.warn("Login rejected - {}", e.getMessage());
+            return ResponseEntity.status(503)
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Login error", e);
             return ResponseEntity.internalServerError()
@@ -162,6 +198,239 @@ public class InternalAuthController {
         }
     }
 
+    /**
+     * Revoke the access (and optionally refresh) token of a session on logout
+     * Returns the new revocations so the calling gateway can apply them right away
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<ApiResponse<List<RevocationEntry>>> revokeTokens(
+            @Valid @RequestBody RevokeTokensRequest revokeRequest,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            log.warn("Unauthorized internal revoke request from IP: {}", getClientIP(request));
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden - Invalid gateway authentication"));
+        }
+
+        try {
+            List<RevocationEntry> revoked = tokenRevocationService.revoke(
+                    revokeRequest.accessToken(), revokeRequest.refreshToken());
+            return ResponseEntity.ok(ApiResponse.success("Tokens revoked", revoked));
+        } catch (Exception e) {
+            log.error("Token revocation error", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Internal server error"));
+        }
+    }
+
+    /**
+     * Failed logins observed by a peer login instance, so both replicas throttle on the same counts
+     */
+    @PostMapping("/throttle/failures")
+    public ResponseEntity<ApiResponse<Void>> reportLoginFailures(
+            @RequestBody LoginFailureReport report,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            log.warn("Unauthorized login failure report from IP: {}", getClientIP(request));
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden - Invalid gateway authentication"));
+        }
+
+        loginThrottle.applyPeerReport(report);
+        return ResponseEntity.ok(ApiResponse.success("Login failures applied", null));
+    }
+
+    /**
+     * Feed of revocations after the given epoch millisecond time
+     * Polled by every gateway instance to keep its in-memory revocation list in sync
+     */
+    @GetMapping("/revocations")
+    public ResponseEntity<ApiResponse<RevocationFeedResponse>> getRevocations(
+            @RequestParam(defaultValue = "0") long since,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden"));
+        }
+
+        try {
+            RevocationFeedResponse feed = tokenRevocationService.getRevocationsSince(since);
+            return ResponseEntity.ok(ApiResponse.success("Revocations retrieved", feed));
+        } catch (Exception e) {
+            log.error("Error reading revocations since {}: {}", since, e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Error reading revocations"));
+        }
+    }
+
+    /**
+     * User directory changes after the given version, used by services that replicate the directory
+     * since=0 pages through all users
+     */
+    @GetMapping("/users/changes")
+    public ResponseEntity<ApiResponse<UserChangeFeedResponse>> getUserChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "5000") int limit,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden"));
+        }
+
+        if (limit <= 0 || limit > 10000) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Limit must be between 1 and 10000"));
+        }
+
+        try {
+            UserChangeFeedResponse feed = userChangeFeedService.getChangesSince(since, limit);
+            return ResponseEntity.ok(ApiResponse.success("User changes retrieved", feed));
+        } catch (Exception e) {
+            log.error("Error reading user changes since {}: {}", since, e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Error reading user changes"));
+        }
+    }
+
+    /**
+     * Resolve many users in one round trip, e.g. the participants of a conversation list
+     */
+    @PostMapping("/users/batch")
+    public ResponseEntity<ApiResponse<UserBatchResponse>> getUsersBatch(
+            @Valid @RequestBody UserBatchRequest batchRequest,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden"));
+        }
+
+        if (batchRequest.userIds().size() > maxBatchIds) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("At most " + maxBatchIds + " user IDs per request"));
+        }
+
+        try {
+            UserBatchResponse response = userLookupService.findUsers(batchRequest.userIds());
+            return ResponseEntity.ok(ApiResponse.success("Users found", response));
+        } catch (Exception e) {
+            log.error("Error in batch user lookup of {} IDs: {}", batchRequest.userIds().size(), e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Error getting user info"));
+        }
+    }
+
+    /**
+     * Contact discovery: which of an address book's usernames / emails (or their hashes) are registered users
+     * Every identifier counts against the requesting user's quota, hashed or not
+     */
+    @PostMapping("/users/discover")
+    public ResponseEntity<ApiResponse<ContactDiscoveryResponse>> discoverContacts(
+            @RequestBody ContactDiscoveryRequest discoveryRequest,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden"));
+        }
+
+        int requested = (discoveryRequest.identifiers() != null ? discoveryRequest.identifiers().size() : 0)
+                + (discoveryRequest.identifierHashes() != null ? discoveryRequest.identifierHashes().size() : 0);
+        if (requested == 0) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("At least one identifier is required"));
+        }
+        if (requested > maxDiscoveryIdentifiers) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("At most " + maxDiscoveryIdentifiers + " identifiers per request"));
+        }
+        if (discoveryRequest.requesterId() == null) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("requesterId is required"));
+        }
+
+        try {
+            contactDiscoveryQuota.acquire(discoveryRequest.requesterId(), requested);
+            ContactDiscoveryResponse response = userLookupService.discoverContacts(discoveryRequest);
+            return ResponseEntity.ok(ApiResponse.success("Contacts discovered", response));
+        } catch (ContactDiscoveryQuotaExceededException e) {
+            log.warn("Contact discovery of {} identifiers by user {} rejected - {}",
+                    requested, discoveryRequest.requesterId(), e.getMessage());
+            return ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error("Contact discovery quota exceeded, please retry later"));
+        } catch (Exception e) {
+            log.error("Error in contact discovery of {} identifiers: {}", requested, e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Error discovering contacts"));
+        }
+    }
+
+    /**
+     * Delete an account: the user is disabled at once, messages and the user row are purged in the background
+     */
+    @DeleteMapping("/users/{userId}")
+    public ResponseEntity<ApiResponse<Void>> deleteUser(
+            @PathVariable Integer userId,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden"));
+        }
+
+        try {
+            if (!accountDeletionService.deleteAccount(userId)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.accepted()
+                    .body(ApiResponse.success("Account deletion scheduled", null));
+        } catch (Exception e) {
+            log.error("Error deleting user {}: {}", userId, e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Error deleting user"));
+        }
+    }
+
+    /**
+     * Username prefix search (autocomplete) over enabled users
+     * Served from the in-memory prefix index, no database access
+     */
+    @GetMapping("/users/search")
+    public ResponseEntity<ApiResponse<UserSearchResponse>> searchUsers(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden"));
+        }
+
+        if (query.trim().length() < 2) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Search query must be at least 2 characters long"));
+        }
+
+        if (limit <= 0 || limit > 50) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Limit must be between 1 and 50"));
+        }
+
+        try {
+            UserSearchResponse response = userSearchService.search(query.trim(), limit);
+            return ResponseEntity.ok(ApiResponse.success("Users found", response));
+        } catch (Exception e) {
+            log.error("Error searching users for '{}': {}", query, e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Error searching users"));
+        }
+    }
+
     /**
      * Health check endpoint for internal monitoring
      */
@@ -0,0 +1,15 @@
+package com.thm_modul.login_service.dto;
+
+import java.util.List;
+
+/**
+ * Identifiers from an address book: plain usernames / emails, and/or hex SHA-256 hashes of the
+ * trimmed, lower-cased values for clients that do not want to send them in clear
+ * Hashing hides nothing from us: usernames and emails are easy to guess, so a hash is as good as the value
+ * requesterId is the authenticated user the lookup is counted against (ContactDiscoveryQuota)
+ */
+public record ContactDiscoveryRequest(
+        Integer requesterId,
+        List<String> identifiers,
+        List<String> identifierHashes
+) {}
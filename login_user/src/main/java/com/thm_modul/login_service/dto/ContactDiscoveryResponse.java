@@ -0,0 +1,10 @@
+package com.thm_modul.login_service.dto;
+
+import java.util.List;
+
+/**
+ * Identifiers of a contact discovery request that belong to enabled users, unmatched ones are left out
+ */
+public record ContactDiscoveryResponse(
+        List<ContactMatch> matches
+) {}
@@ -0,0 +1,11 @@
+package com.thm_modul.login_service.dto;
+
+/**
+ * A registered user behind one identifier of a contact discovery request
+ * identifier is echoed as sent (plain value or hash)
+ */
+public record ContactMatch(
+        String identifier,
+        Integer userId,
+        String username
+) {}
@@ -0,0 +1,14 @@
+package com.thm_modul.login_service.dto;
+
+import java.util.List;
+
+/**
+ * Failed logins seen by one login instance, shared with its peers
+ * Keys are hashes of the user ID (or, for identifiers matching no user, the normalized identifier)
+ * and of the client IP, never the raw values
+ */
+public record LoginFailureReport(
+        List<Long> accountKeys,
+        List<Long> ipKeys,
+        long observedAt
+) {}
@@ -0,0 +1,11 @@
+package com.thm_modul.login_service.dto;
+
+/**
+ * A revoked token as seen by the gateways
+ * Times are epoch milliseconds
+ */
+public record RevocationEntry(
+        String jti,
+        long expiresAt,
+        long revokedAt
+) {}
@@ -0,0 +1,11 @@
+package com.thm_modul.login_service.dto;
+
+import java.util.List;
+
+/**
+ * Revocations since the requested time, plus the server time to continue from
+ */
+public record RevocationFeedResponse(
+        List<RevocationEntry> revocations,
+        long serverTime
+) {}
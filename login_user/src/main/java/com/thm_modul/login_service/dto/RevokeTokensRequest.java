@@ -0,0 +1,12 @@
+package com.thm_modul.login_service.dto;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * Tokens to revoke on logout, the refresh token is optional
+ */
+public record RevokeTokensRequest(
+        @NotBlank(message = "Access token is required")
+        String accessToken,
+        String refreshToken
+) {}
@@ -0,0 +1,9 @@
+package com.thm_modul.login_service.dto;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+public record UserBatchRequest(
+        @NotEmpty(message = "At least one user ID is required")
+        List<Integer> userIds
+) {}
@@ -0,0 +1,11 @@
+package com.thm_modul.login_service.dto;
+
+import java.util.List;
+
+/**
+ * Users found for a batch lookup, in request order, plus the IDs that matched no user
+ */
+public record UserBatchResponse(
+        List<UserInfoResponse> users,
+        List<Integer> missingIds
+) {}
@@ -0,0 +1,13 @@
+package com.thm_modul.login_service.dto;
+
+/**
+ * One entry of the user change feed
+ * Deleted users carry no username and are always disabled
+ */
+public record UserChange(
+        Integer userId,
+        String username,
+        boolean enabled,
+        boolean deleted,
+        long version
+) {}
@@ -0,0 +1,13 @@
+package com.thm_modul.login_service.dto;
+
+import java.util.List;
+
+/**
+ * Changes after the requested version in version order
+ * latestVersion is the version to continue from, hasMore means the page was full
+ */
+public record UserChangeFeedResponse(
+        List<UserChange> changes,
+        long latestVersion,
+        boolean hasMore
+) {}
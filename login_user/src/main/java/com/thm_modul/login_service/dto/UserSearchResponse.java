@@ -0,0 +1,9 @@
+package com.thm_modul.login_service.dto;
+
+import java.util.List;
+
+public record UserSearchResponse(
+        String query,
+        List<UserSearchResult> results,
+        int totalCount
+) {}
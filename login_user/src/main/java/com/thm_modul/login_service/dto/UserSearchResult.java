@@ -0,0 +1,6 @@
+package com.thm_modul.login_service.dto;
+
+public record UserSearchResult(
+        Integer userId,
+        String username
+) {}
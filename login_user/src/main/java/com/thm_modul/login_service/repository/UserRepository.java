@@ -2,7 +2,11 @@ package com.thm_modul.login_service.repository;
 
 import com.thm_modul.login_service.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -13,7 +17,13 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     Optional<User> findByEmail(String email);
 
-    Optional<User> findByUserNameOrEmail(String userName, String email);
+    /**
+     * Find user by username or email, case-insensitively
+     * Single unique index probe on login_identifier (maintained by a trigger on app_user)
+     */
+    @Query(value = "SELECT u.* FROM app_user u JOIN login_identifier li ON li.user_id = u.id " +
+            "WHERE li.identifier = lower(:identifier)", nativeQuery = true)
+    Optional<User> findByLoginIdentifier(@Param("identifier") String identifier);
 
     /**
      * Check if a user exists by ID and is enabled
@@ -26,4 +36,12 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      * Used to ensure we only return active users
      */
     Optional<User> findByIdAndEnabledTrue(Integer id);
+
+    /**
+     * Replace only the password hash, without loading and rewriting the whole row
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Integer id, @Param("password") String password);
 }
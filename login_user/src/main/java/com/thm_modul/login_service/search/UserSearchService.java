@@ -0,0 +1,219 @@
+package com.thm_modul.login_service.search;
+
+import com.thm_modul.login_service.dto.UserSearchResponse;
+import com.thm_modul.login_service.dto.UserSearchResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Username autocomplete backed by an in-memory prefix index of enabled users
+ * - A packed, immutable snapshot (UsernamePrefixIndex) is rebuilt from the database periodically
+ * - Users registered since the last rebuild are picked up by polling and kept in a small sorted delta
+ * - Disabled users are hidden immediately via removeUser and dropped for good on the next rebuild
+ */
+@Slf4j
+@Service
+public class UserSearchService {
+
+    private static final String LOAD_ENABLED_USERS =
+            "SELECT id, user_name FROM app_user WHERE enabled = true";
+
+    // created_at is set at insert time, the overlap covers transactions that commit late
+    private static final String LOAD_RECENT_USERS =
+            "SELECT id, user_name, created_at FROM app_user " +
+            "WHERE enabled = true AND created_at > ? ORDER BY created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long maxMemoryBytes;
+    private final long pollOverlapMs;
+    private final int maxDeltaSize;
+
+    private volatile UsernamePrefixIndex index = UsernamePrefixIndex.empty();
+    private volatile boolean loaded;
+    private volatile Timestamp newestCreatedAt;
+
+    // Users added since the last rebuild, sorted like the index (folded name, then ID)
+    private final ConcurrentSkipListMap<String, UserSearchResult> delta = new ConcurrentSkipListMap<>();
+    private final Map<Integer, String> deltaKeys = new ConcurrentHashMap<>();
+
+    // Users disabled since the last rebuild, with the time they were removed
+    private final Map<Integer, Long> removed = new ConcurrentHashMap<>();
+
+    public UserSearchService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.user-search.max-memory-mb:256}") long maxMemoryMb,
+            @Value("${app.user-search.poll-overlap-ms:60000}") long pollOverlapMs,
+            @Value("${app.user-search.max-delta-size:50000}") int maxDeltaSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxMemoryBytes = maxMemoryMb * 1024 * 1024;
+        this.pollOverlapMs = pollOverlapMs;
+        this.maxDeltaSize = maxDeltaSize;
+    }
+
+    /**
+     * Top-k enabled users whose username starts with the query (case-insensitive for ASCII)
+     */
+    public UserSearchResponse search(String query, int limit) {
+        byte[] prefix = UsernamePrefixIndex.foldedBytes(query);
+        String foldedQuery = fold(query);
+
+        List<UserSearchResult> candidates = new ArrayList<>(limit * 2);
+        index.collect(prefix, limit, removed::containsKey, candidates);
+
+        for (UserSearchResult recent : delta.subMap(foldedQuery, true, foldedQuery + Character.MAX_VALUE, false).values()) {
+            if (candidates.size() >= limit * 2) {
+                break;
+            }
+            if (!removed.containsKey(recent.userId())) {
+                candidates.add(recent);
+            }
+        }
+
+        // A user can be in both the snapshot and the delta right after a rebuild
+        Set<Integer> seen = new HashSet<>();
+        List<UserSearchResult> results = candidates.stream()
+                .filter(candidate -> seen.add(candidate.userId()))
+                .sorted(Comparator.comparing((UserSearchResult candidate) -> fold(candidate.username()))
+                        .thenComparing(UserSearchResult::userId))
+                .limit(limit)
+                .toList();
+
+        return new UserSearchResponse(query, results, results.size());
+    }
+
+    /**
+     * Hide a user from search results, e.g. after the account was disabled
+     */
+    public void removeUser(Integer userId) {
+        removed.put(userId, System.currentTimeMillis());
+        String key = deltaKeys.remove(userId);
+        if (key != null) {
+            delta.remove(key);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Full rebuild of the packed index from the database, also run once on startup
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.user-search.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+
+        try {
+            UsernamePrefixIndex.Builder builder = UsernamePrefixIndex.builder(maxMemoryBytes);
+            Timestamp newest = jdbcTemplate.queryForObject("SELECT max(created_at) FROM app_user", Timestamp.class);
+
+            // Inside a transaction the driver streams rows with the fetch size instead of buffering them all
+            readOnlyTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.query(LOAD_ENABLED_USERS, rs -> {
+                        builder.add(rs.getInt("id"), rs.getString("user_name"));
+                    }));
+
+            UsernamePrefixIndex rebuilt = builder.build();
+            index = rebuilt;
+
+            // Everything up to the rebuild is in the snapshot now
+            delta.clear();
+            deltaKeys.clear();
+            removed.values().removeIf(removedAt -> removedAt < startedAt);
+            if (newest != null) {
+                newestCreatedAt = newest;
+            }
+            loaded = true;
+
+            if (builder.isTruncated()) {
+                log.error("User search index hit its memory budget of {} MB - only {} users are searchable",
+                        maxMemoryBytes / (1024 * 1024), rebuilt.size());
+            }
+            log.info("User search index rebuilt: {} users, {} KB, {} ms",
+                    rebuilt.size(), rebuilt.memoryBytes() / 1024, System.currentTimeMillis() - startedAt);
+
+        } catch (Exception e) {
+            log.error("Failed to rebuild user search index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pick up users registered since the last rebuild
+     */
+    @Scheduled(fixedDelayString = "${app.user-search.poll-interval-ms:5000}")
+    public void pollNewUsers() {
+        if (!loaded) {
+            return;
+        }
+
+        try {
+            Timestamp since = newestCreatedAt != null
+                    ? new Timestamp(newestCreatedAt.getTime() - pollOverlapMs)
+                    : new Timestamp(0);
+
+            jdbcTemplate.query(LOAD_RECENT_USERS, rs -> {
+                Integer userId = rs.getInt("id");
+                if (!removed.containsKey(userId) && !deltaKeys.containsKey(userId)) {
+                    addToDelta(userId, rs.getString("user_name"));
+                }
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                if (newestCreatedAt == null || createdAt.after(newestCreatedAt)) {
+                    newestCreatedAt = createdAt;
+                }
+            }, since);
+
+            if (delta.size() > maxDeltaSize) {
+                log.info("User search delta has {} entries, rebuilding index", delta.size());
+                rebuild();
+            }
+
+        } catch (Exception e) {
+            log.warn("Failed to poll new users for search index: {}", e.getMessage());
+        }
+    }
+
+    private void addToDelta(Integer userId, String username) {
+        // Zero-padded ID keeps equal names ordered by ID, like the snapshot
+        String key = fold(username) + '\u0000' + String.format("%010d", userId);
+        deltaKeys.put(userId, key);
+        delta.put(key, new UserSearchResult(userId, username));
+    }
+
+    /**
+     * Same ASCII-only case folding as the packed index
+     */
+    private static String fold(String value) {
+        StringBuilder folded = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (folded == null) {
+                    folded = new StringBuilder(value);
+                }
+                folded.setCharAt(i, (char) (c + ('a' - 'A')));
+            }
+        }
+        return folded != null ? folded.toString() : value;
+    }
+}
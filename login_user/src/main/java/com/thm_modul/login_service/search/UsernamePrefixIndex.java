@@ -0,0 +1,261 @@
+package com.thm_modul.login_service.search;
+
+import com.thm_modul.login_service.dto.UserSearchResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable, packed prefix index of usernames
+ * All usernames live UTF-8 encoded in one byte arena, sorted case-insensitively (ASCII folding),
+ * with one offset and one user ID per entry. A prefix query is a binary search for the first
+ * candidate followed by a sequential scan, so top-k lookups stay in the microsecond range
+ *
+ * Memory per user: username bytes + 4 (offset) + 4 (user ID), i.e. roughly 20 bytes for a
+ * typical username - about 20 MB per million users, without any per-entry objects
+ */
+public final class UsernamePrefixIndex {
+
+    private static final UsernamePrefixIndex EMPTY = new UsernamePrefixIndex(new byte[0], new int[]{0}, new int[0], 0);
+
+    private final byte[] arena;
+    private final int[] offsets;
+    private final int[] userIds;
+    private final int size;
+
+    private UsernamePrefixIndex(byte[] arena, int[] offsets, int[] userIds, int size) {
+        this.arena = arena;
+        this.offsets = offsets;
+        this.userIds = userIds;
+        this.size = size;
+    }
+
+    public static UsernamePrefixIndex empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(long maxBytes) {
+        return new Builder(maxBytes);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Heap used by the packed arrays
+     */
+    public long memoryBytes() {
+        return (long) arena.length + 4L * offsets.length + 4L * userIds.length;
+    }
+
+    /**
+     * Add up to limit entries starting with the (already ASCII folded) prefix to out, in index order
+     * Entries whose user ID matches excluded are skipped
+     */
+    public void collect(byte[] foldedPrefix, int limit, IntPredicate excluded, List<UserSearchResult> out) {
+        int added = 0;
+        for (int i = lowerBound(foldedPrefix); i < size && added < limit; i++) {
+            if (!startsWith(i, foldedPrefix)) {
+                break;
+            }
+            if (excluded.test(userIds[i])) {
+                continue;
+            }
+            out.add(new UserSearchResult(userIds[i],
+                    new String(arena, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8)));
+            added++;
+        }
+    }
+
+    /**
+     * First entry that is not smaller than the prefix
+     */
+    private int lowerBound(byte[] prefix) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(arena, offsets[mid], offsets[mid + 1], prefix, 0, prefix.length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int entry, byte[] prefix) {
+        int from = offsets[entry];
+        if (offsets[entry + 1] - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (fold(arena[from + i]) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower-case ASCII letters, leave every other byte (including UTF-8 multi-byte sequences) as is
+     */
+    static byte fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * ASCII folded UTF-8 bytes of a query prefix
+     */
+    public static byte[] foldedBytes(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = fold(bytes[i]);
+        }
+        return bytes;
+    }
+
+    /**
+     * Unsigned, ASCII case-insensitive byte comparison
+     */
+    private static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        int aLength = aTo - aFrom;
+        int bLength = bTo - bFrom;
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int difference = (fold(a[aFrom + i]) & 0xFF) - (fold(b[bFrom + i]) & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    /**
+     * Collects usernames in load order and packs them into a sorted index
+     * Stops accepting entries once the memory budget is reached
+     */
+    public static final class Builder {
+
+        private final long maxBytes;
+        private byte[] arena = new byte[1 << 16];
+        private int[] offsets = new int[1 << 12];
+        private int[] userIds = new int[1 << 12];
+        private int arenaSize;
+        private int size;
+        private boolean truncated;
+
+        private Builder(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * Add a username, returns false once the memory budget is exhausted
+         */
+        public boolean add(int userId, String username) {
+            byte[] bytes = username.getBytes(StandardCharsets.UTF_8);
+
+            if (estimatedBytes() + bytes.length + 8 > maxBytes) {
+                truncated = true;
+                return false;
+            }
+
+            if (arenaSize + bytes.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + bytes.length));
+            }
+            if (size == userIds.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                userIds = Arrays.copyOf(userIds, size * 2);
+            }
+
+            System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+            offsets[size] = arenaSize;
+            userIds[size] = userId;
+            arenaSize += bytes.length;
+            size++;
+            return true;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        public UsernamePrefixIndex build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+
+            int[] order = sortedOrder();
+
+            // Repack in sorted order so a prefix scan reads the arena sequentially
+            byte[] sortedArena = new byte[arenaSize];
+            int[] sortedOffsets = new int[size + 1];
+            int[] sortedUserIds = new int[size];
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                int entry = order[i];
+                int length = length(entry);
+                System.arraycopy(arena, offsets[entry], sortedArena, position, length);
+                sortedOffsets[i] = position;
+                sortedUserIds[i] = userIds[entry];
+                position += length;
+            }
+            sortedOffsets[size] = position;
+
+            return new UsernamePrefixIndex(sortedArena, sortedOffsets, sortedUserIds, size);
+        }
+
+        private long estimatedBytes() {
+            // Final index holds the arena plus an offset and an ID per entry
+            return (long) arenaSize + 8L * size;
+        }
+
+        private int length(int entry) {
+            return (entry + 1 < size ? offsets[entry + 1] : arenaSize) - offsets[entry];
+        }
+
+        /**
+         * Bottom-up merge sort of entry numbers, avoids boxing millions of indices
+         */
+        private int[] sortedOrder() {
+            int[] source = new int[size];
+            for (int i = 0; i < size; i++) {
+                source[i] = i;
+            }
+            int[] target = new int[size];
+
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size; low += 2 * width) {
+                    int middle = Math.min(low + width, size);
+                    int high = Math.min(low + 2 * width, size);
+                    merge(source, target, low, middle, high);
+                }
+                int[] swap = source;
+                source = target;
+                target = swap;
+            }
+            return source;
+        }
+
+        private void merge(int[] source, int[] target, int low, int middle, int high) {
+            int left = low;
+            int right = middle;
+            for (int i = low; i < high; i++) {
+                if (left < middle && (right >= high || compareEntries(source[left], source[right]) <= 0)) {
+                    target[i] = source[left++];
+                } else {
+                    target[i] = source[right++];
+                }
+            }
+        }
+
+        private int compareEntries(int a, int b) {
+            int aFrom = offsets[a];
+            int bFrom = offsets[b];
+            return compare(arena, aFrom, aFrom + length(a), arena, bFrom, bFrom + length(b));
+        }
+    }
+}
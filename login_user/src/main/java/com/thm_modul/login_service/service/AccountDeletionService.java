@@ -0,0 +1,69 @@
+package com.thm_modul.login_service.service;
+
+import com.thm_modul.login_service.search.UserSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Account deletion in two steps, so that deleting a user with a large message history stays cheap
+ * - Right away: the user is disabled and queued in user_purge, in one short transaction
+ * - In the background: message_service deletes the messages in batches and finally the app_user row
+ * A disabled user can no longer log in or refresh, and drops out of search and the replicated user directories
+ */
+@Slf4j
+@Service
+public class AccountDeletionService {
+
+    private static final String DISABLE_USER =
+            "UPDATE app_user SET enabled = false WHERE id = ?";
+
+    // Deleting twice keeps the original request and its progress
+    private static final String QUEUE_PURGE =
+            "INSERT INTO user_purge (user_id) VALUES (?) ON CONFLICT (user_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EnabledUserCache enabledUserCache;
+    private final UserSearchService userSearchService;
+
+    public AccountDeletionService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            EnabledUserCache enabledUserCache,
+            UserSearchService userSearchService) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabledUserCache = enabledUserCache;
+        this.userSearchService = userSearchService;
+    }
+
+    /**
+     * Disable the user and queue the removal of their data
+     * @return false if the user does not exist (or was already purged)
+     */
+    public boolean deleteAccount(Integer userId) {
+        Boolean found = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(DISABLE_USER, userId) == 0) {
+                return false;
+            }
+            jdbcTemplate.update(QUEUE_PURGE, userId);
+            return true;
+        });
+
+        if (!Boolean.TRUE.equals(found)) {
+            return false;
+        }
+
+        // Only after the commit, so the next reload already sees the account disabled
+        // Other login instances follow through DisabledUserSync within a poll interval
+        enabledUserCache.invalidate(userId);
+        userSearchService.removeUser(userId);
+        log.info("User {} disabled and queued for purge", userId);
+        return true;
+    }
+}
@@ -5,17 +5,18 @@ import com.thm_modul.login_service.dto.LoginResponse;
 import com.thm_modul.login_service.dto.RefreshTokenRequest;
 import com.thm_modul.login_service.entity.User;
 import com.thm_modul.login_service.repository.UserRepository;
+import com.thm_modul.login_service.throttle.LoginThrottle;
+import com.thm_modul.login_service.throttle.LoginThrottledException;
 import com.thm_modul.login_service.util.JwtUtil;
+import com.thm_modul.jwt_codec.JwtClaims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -24,42 +25,63 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final TokenRevocationService tokenRevocationService;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final EnabledUserCache enabledUserCache;
+    private final LoginThrottle loginThrottle;
 
     /**
      * Authenticate user and generate JWT tokens
      * Now handles authentication without Spring Security's AuthenticationManager
+     * Not transactional on purpose: no database connection is held while the password is hashed
+     * Uses a single lookup, token claims come from the loaded row and last_login is written behind
+     * @param clientIp address of the end client as forwarded by the gateway, may be null
      */
-    @Transactional
-    public LoginResponse login(LoginRequest loginRequest) {
+    public LoginResponse login(LoginRequest loginRequest, String clientIp) {
         log.debug("Attempting login for user: {}", loginRequest.usernameOrEmail());
 
+        // Attempts from a throttled address cost neither a database lookup nor a hash computation
+        loginThrottle.checkIpAllowed(clientIp);
+
+        Integer userId = null;
         try {
-            // Find user by username or email
-            User user = userRepository.findByUserNameOrEmail(
-                    loginRequest.usernameOrEmail(),
-                    loginRequest.usernameOrEmail()
-            ).orElseThrow(() -> new BadCredentialsException("User not found"));
+            // Find user by username or email (case-insensitive)
+            Optional<User> found = userRepository.findByLoginIdentifier(loginRequest.usernameOrEmail());
+            userId = found.map(User::getId).orElse(null);
+
+            // Keyed on the user, so username and email share one failure budget; unknown identifiers are
+            // throttled the same way, so a 429 does not tell whether the account exists
+            loginThrottle.checkAccountAllowed(userId, loginRequest.usernameOrEmail());
+
+            User user = found.orElseThrow(() -> new BadCredentialsException("User not found"));
 
             // Check if user is enabled
             if (!user.getEnabled()) {
+                enabledUserCache.invalidate(user.getId());
                 throw new BadCredentialsException("User account is disabled");
             }
 
             // Verify password manually since we don't have AuthenticationManager
-            if (!passwordEncoder.matches(loginRequest.password(), user.getPassword())) {
+            // BCrypt runs on the bounded hashing pool, not on this request thread
+            if (!passwordHashingExecutor.matches(loginRequest.password(), user.getPassword())) {
                 throw new BadCredentialsException("Invalid password");
             }
 
-            // Update last login timestamp
-            user.setLastLogin(LocalDateTime.now());
-            userRepository.save(user);
+            // Transparently upgrade hashes created with an older (lower) cost while we have the raw password
+            if (passwordHashingExecutor.needsRehash(user.getPassword())) {
+                rehashPassword(user, loginRequest.password());
+            }
+
+            // The row is loaded anyway, so the following refreshes start from a warm cache
+            enabledUserCache.put(user);
+
+            // Update last login timestamp (flushed in batches by LastLoginRecorder)
+            lastLoginRecorder.record(user.getId(), LocalDateTime.now());
 
             // Generate tokens with user ID included
-            UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUserName());
-            String accessToken = jwtUtil.generateToken(userDetails, user.getId());
-            String refreshToken = jwtUtil.generateRefreshToken(userDetails, user.getId());
+            String accessToken = jwtUtil.generateToken(user.getUserName(), user.getId());
+            String refreshToken = jwtUtil.generateRefreshToken(user.getUserName(), user.getId());
 
             log.info("Login successful for user: {} (ID: {})", user.getUserName(), user.getId());
 
@@ -73,6 +95,9 @@ public class AuthService {
 
         } catch (BadCredentialsException e) {
             log.warn("Login failed for user: {} - {}", loginRequest.usernameOrEmail(), e.getMessage());
+            loginThrottle.recordFailure(userId, loginRequest.usernameOrEmail(), clientIp);
+            throw e;
+        } catch (LoginThrottledException | PasswordHashingOverloadedException e) {
             throw e;
         } catch (Exception e) {
             log.error("Unexpected error during login for user: {}", loginRequest.usernameOrEmail(), e);
@@ -80,33 +105,57 @@ public class AuthService {
         }
     }
 
+    /**
+     * Replace the stored hash with one using the current parameters
+     * A failed rehash never fails the login, it is simply retried on the next one
+     */
+    private void rehashPassword(User user, String rawPassword) {
+        try {
+            String newHash = passwordHashingExecutor.encode(rawPassword);
+            userRepository.updatePassword(user.getId(), newHash);
+            user.setPassword(newHash);
+            log.info("Upgraded password hash for user ID: {}", user.getId());
+        } catch (PasswordHashingOverloadedException e) {
+            log.debug("Skipping password rehash for user ID {} - hashing pool busy", user.getId());
+        } catch (Exception e) {
+            log.warn("Failed to store upgraded password hash for user ID {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
     /**
      * Refresh JWT tokens
+     * The token is parsed once and account status comes from EnabledUserCache,
+     * so a typical refresh needs no database round trip
      */
     public LoginResponse refreshToken(RefreshTokenRequest refreshTokenRequest) {
-        String refreshToken = refreshTokenRequest.refreshToken();
+        JwtClaims claims = jwtUtil.parseValidClaims(refreshTokenRequest.refreshToken());
 
-        if (!jwtUtil.validateToken(refreshToken)) {
+        if (claims == null) {
             throw new BadCredentialsException("Invalid refresh token");
         }
 
+        // Refresh tokens revoked on logout must not mint new access tokens
+        if (tokenRevocationService.isRevoked(claims.id())) {
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+
         try {
-            String username = jwtUtil.extractUsername(refreshToken);
-            Integer userId = jwtUtil.getUserIdFromToken(refreshToken);
+            String username = claims.subject();
+            Integer userId = claims.userId();
 
             if (username == null || userId == null) {
                 throw new BadCredentialsException("Invalid refresh token claims");
             }
 
             // Verify user still exists and is enabled
-            User user = userRepository.findByIdAndEnabledTrue(userId)
-                    .orElseThrow(() -> new BadCredentialsException("User not found or disabled"));
-
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            EnabledUserCache.CachedUser user = enabledUserCache.getEnabledUser(userId);
+            if (user == null) {
+                throw new BadCredentialsException("User not found or disabled");
+            }
 
             // Generate new tokens
-            String newAccessToken = jwtUtil.generateToken(userDetails, userId);
-            String newRefreshToken = jwtUtil.generateRefreshToken(userDetails, userId);
+            String newAccessToken = jwtUtil.generateToken(user.userName(), userId);
+            String newRefreshToken = jwtUtil.generateRefreshToken(user.userName(), userId);
 
             log.debug("Token refresh successful for user: {} (ID: {})", username, userId);
 
@@ -114,8 +163,8 @@ public class AuthService {
                     newAccessToken,
                     newRefreshToken,
                     86400,
-                    user.getUserName(),
-                    user.getEmail()
+                    user.userName(),
+                    user.email()
             );
 
         } catch (Exception e) {
@@ -130,12 +179,11 @@ public class AuthService {
      */
     public boolean validateCredentials(String usernameOrEmail, String password) {
         try {
-            User user = userRepository.findByUserNameOrEmail(usernameOrEmail, usernameOrEmail)
-                    .orElse(null);
+            User user = userRepository.findByLoginIdentifier(usernameOrEmail).orElse(null);
 
             return user != null
                     && user.getEnabled()
-                    && passwordEncoder.matches(password, user.getPassword());
+                    && passwordHashingExecutor.matches(password, user.getPassword());
 
         } catch (Exception e) {
             log.warn("Error validating credentials for user: {}", usernameOrEmail, e);
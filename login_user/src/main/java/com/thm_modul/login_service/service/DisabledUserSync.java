@@ -0,0 +1,73 @@
+package com.thm_modul.login_service.service;
+
+import com.thm_modul.login_service.dto.UserChange;
+import com.thm_modul.login_service.dto.UserChangeFeedResponse;
+import com.thm_modul.login_service.search.UserSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies accounts disabled or deleted on any login instance (or directly in the database) to this instance
+ * - Follows the user change feed from its latest version at startup, earlier changes are already reflected
+ *   by a fresh cache and the initial search index build
+ * - Every disabled or deleted user is dropped from EnabledUserCache and hidden from UserSearchService
+ * AccountDeletionService applies its own deletions at once, the feed covers the other replicas
+ */
+@Slf4j
+@Service
+public class DisabledUserSync {
+
+    private final UserChangeFeedService userChangeFeedService;
+    private final EnabledUserCache enabledUserCache;
+    private final UserSearchService userSearchService;
+    private final int batchSize;
+    private final long versionOverlap;
+
+    private long appliedVersion = -1;
+
+    public DisabledUserSync(
+            UserChangeFeedService userChangeFeedService,
+            EnabledUserCache enabledUserCache,
+            UserSearchService userSearchService,
+            @Value("${app.disabled-user-sync.batch-size:1000}") int batchSize,
+            @Value("${app.disabled-user-sync.version-overlap:1000}") long versionOverlap) {
+        this.userChangeFeedService = userChangeFeedService;
+        this.enabledUserCache = enabledUserCache;
+        this.userSearchService = userSearchService;
+        this.batchSize = batchSize;
+        this.versionOverlap = versionOverlap;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.disabled-user-sync.poll-interval-ms:2000}")
+    public void sync() {
+        try {
+            if (appliedVersion < 0) {
+                appliedVersion = userChangeFeedService.getLatestVersion();
+                log.info("Following disabled users from version {}", appliedVersion);
+                return;
+            }
+
+            // Versions are taken at write time but become visible at commit time, so a slow
+            // transaction can surface behind newer versions - re-reading a window catches it
+            long version = Math.max(0, appliedVersion - versionOverlap);
+            boolean hasMore = true;
+            while (hasMore) {
+                UserChangeFeedResponse page = userChangeFeedService.getChangesSince(version, batchSize);
+                for (UserChange change : page.changes()) {
+                    if (change.deleted() || !change.enabled()) {
+                        enabledUserCache.invalidate(change.userId());
+                        userSearchService.removeUser(change.userId());
+                    }
+                }
+                version = page.latestVersion();
+                hasMore = page.hasMore();
+            }
+
+            appliedVersion = Math.max(appliedVersion, version);
+        } catch (Exception e) {
+            log.warn("Failed to sync disabled users: {}", e.getMessage());
+        }
+    }
+}
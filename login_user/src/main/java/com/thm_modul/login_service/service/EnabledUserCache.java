@@ -0,0 +1,112 @@
+package com.thm_modul.login_service.service;
+
+import com.thm_modul.login_service.entity.User;
+import com.thm_modul.login_service.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-based cache of enabled accounts used by token refresh
+ * - Only enabled users are cached, a miss falls back to findByIdAndEnabledTrue
+ * - Disabling or deleting an account must call invalidate, other replicas are reached through
+ *   DisabledUserSync (the user change feed), the TTL bounds staleness if that falls behind
+ */
+@Slf4j
+@Service
+public class EnabledUserCache {
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final LinkedHashMap<Integer, CachedUser> entries;
+
+    public EnabledUserCache(
+            UserRepository userRepository,
+            @Value("${app.enabled-user-cache.max-entries:50000}") int maxEntries,
+            @Value("${app.enabled-user-cache.ttl-ms:60000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+
+        // Access-ordered map evicting the least recently used account once the bound is reached
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedUser> eldest) {
+                return size() > EnabledUserCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Enabled account for the ID, from memory if possible
+     * @return the account or null if it does not exist or is disabled
+     */
+    public CachedUser getEnabledUser(Integer userId) {
+        synchronized (entries) {
+            CachedUser cached = entries.get(userId);
+            if (cached != null) {
+                if (cached.expiresAt() >= System.currentTimeMillis()) {
+                    return cached;
+                }
+                entries.remove(userId);
+            }
+        }
+
+        return userRepository.findByIdAndEnabledTrue(userId)
+                .map(this::put)
+                .orElse(null);
+    }
+
+    /**
+     * Cache an account that was just loaded anyway, e.g. on login
+     * Disabled accounts are dropped instead
+     */
+    public CachedUser put(User user) {
+        if (!Boolean.TRUE.equals(user.getEnabled())) {
+            invalidate(user.getId());
+            return null;
+        }
+
+        CachedUser cached = new CachedUser(
+                user.getId(),
+                user.getUserName(),
+                user.getEmail(),
+                System.currentTimeMillis() + ttlMs
+        );
+
+        synchronized (entries) {
+            entries.put(user.getId(), cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Forget an account, e.g. after it was disabled or deleted
+     */
+    public void invalidate(Integer userId) {
+        synchronized (entries) {
+            entries.remove(userId);
+        }
+        log.debug("Invalidated cached account status for user ID: {}", userId);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * The account fields needed to issue tokens
+     */
+    public record CachedUser(
+            Integer id,
+            String userName,
+            String email,
+            long expiresAt
+    ) {}
+}
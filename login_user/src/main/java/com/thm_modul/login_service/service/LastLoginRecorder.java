@@ -0,0 +1,117 @@
+package com.thm_modul.login_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for app_user.last_login
+ * - Logins only record the timestamp in memory, repeated logins of the same user collapse into one entry
+ * - Pending entries are flushed periodically as a single batched UPDATE, and once more on shutdown
+ * - last_login is informational, so a crash loses at most one flush interval of timestamps
+ */
+@Slf4j
+@Service
+public class LastLoginRecorder {
+
+    // Never move last_login backwards, e.g. when replicas flush out of order
+    private static final String UPDATE_LAST_LOGIN =
+            "UPDATE app_user SET last_login = ? WHERE id = ? AND (last_login IS NULL OR last_login < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    private final Map<Integer, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final AtomicLong recordedLogins = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    public LastLoginRecorder(
+            DataSource dataSource,
+            @Value("${app.last-login.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Remember a successful login, keeping the latest timestamp per user
+     */
+    public void record(Integer userId, LocalDateTime loginTime) {
+        keepLatest(userId, loginTime);
+        recordedLogins.incrementAndGet();
+    }
+
+    private void keepLatest(Integer userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * Write all pending timestamps in batched UPDATEs
+     * Entries that fail to write are put back and retried on the next flush
+     */
+    @Scheduled(fixedDelayString = "${app.last-login.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        for (Integer userId : pending.keySet()) {
+            LocalDateTime loginTime = pending.remove(userId);
+            if (loginTime == null) {
+                continue;
+            }
+            Timestamp timestamp = Timestamp.valueOf(loginTime);
+            batch.add(new Object[]{timestamp, userId, timestamp});
+
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, batch);
+            flushedRows.addAndGet(batch.size());
+            log.debug("Flushed last login for {} users", batch.size());
+        } catch (Exception e) {
+            log.warn("Failed to flush last login for {} users, will retry: {}", batch.size(), e.getMessage());
+            for (Object[] row : batch) {
+                keepLatest((Integer) row[1], ((Timestamp) row[0]).toLocalDateTime());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getRecordedLogins() {
+        return recordedLogins.get();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.get();
+    }
+}
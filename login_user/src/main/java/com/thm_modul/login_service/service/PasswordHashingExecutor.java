@@ -0,0 +1,117 @@
+package com.thm_modul.login_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt verification on a dedicated pool sized to the CPU cores
+ * A login burst can then only occupy that pool plus a bounded queue; everything beyond is
+ * rejected immediately with PasswordHashingOverloadedException instead of tying up Tomcat
+ * threads that the cheap internal endpoints (/validate-user, /user-info) need
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    private final PasswordEncoder passwordEncoder;
+    private final long maxWaitMs;
+    private final ThreadPoolExecutor hashingPool;
+
+    public PasswordHashingExecutor(
+            PasswordEncoder passwordEncoder,
+            @Value("${app.password-hashing.threads:0}") int threads,
+            @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.password-hashing.max-wait-ms:3000}") long maxWaitMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.maxWaitMs = maxWaitMs;
+
+        // 0 = one thread per available core, hashing is pure CPU work
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.hashingPool = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        log.info("Password hashing pool started with {} threads and a queue of {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Verify a raw password against its stored hash on the hashing pool
+     * @throws PasswordHashingOverloadedException if the pool is saturated or the check waited too long
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(submit(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Whether a stored hash was created with weaker parameters than the current encoder uses
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hash a password with the current parameters on the hashing pool
+     * @throws PasswordHashingOverloadedException if the pool is saturated or the hash waited too long
+     */
+    public String encode(String rawPassword) {
+        return await(submit(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public int getQueuedTasks() {
+        return hashingPool.getQueue().size();
+    }
+
+    public int getActiveThreads() {
+        return hashingPool.getActiveCount();
+    }
+
+    private <T> Future<T> submit(Callable<T> hashingTask) {
+        try {
+            return hashingPool.submit(hashingTask);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing pool saturated ({} queued), rejecting request", hashingPool.getQueue().size());
+            throw new PasswordHashingOverloadedException("Too many concurrent logins, please retry later");
+        }
+    }
+
+    private <T> T await(Future<T> result) {
+        try {
+            return result.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new PasswordHashingOverloadedException("Password hashing timed out, please retry later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingOverloadedException("Password hashing interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdown();
+    }
+}
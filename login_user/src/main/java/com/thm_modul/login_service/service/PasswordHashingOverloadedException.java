@@ -0,0 +1,12 @@
+package com.thm_modul.login_service.service;
+
+/**
+ * Thrown when the password hashing pool cannot take more work
+ * Mapped to 503 so clients back off instead of piling up on request threads
+ */
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    public PasswordHashingOverloadedException(String message) {
+        super(message);
+    }
+}
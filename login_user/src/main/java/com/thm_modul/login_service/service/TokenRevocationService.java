@@ -0,0 +1,187 @@
+package com.thm_modul.login_service.service;
+
+import com.thm_modul.jwt_codec.InvalidTokenException;
+import com.thm_modul.jwt_codec.JwtClaims;
+import com.thm_modul.login_service.dto.RevocationEntry;
+import com.thm_modul.login_service.dto.RevocationFeedResponse;
+import com.thm_modul.login_service.entity.RevokedToken;
+import com.thm_modul.login_service.repository.RevokedTokenRepository;
+import com.thm_modul.login_service.util.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token revocation (logout) keyed by the jti claim
+ * The database is the source of truth, gateways and every login instance keep an in-memory copy
+ * (gateways via the revocation feed, login instances by polling the table) so checking a token
+ * never needs a database round trip
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final long overlapMs;
+
+    // jti -> token expiry (epoch ms) of revocations that still matter
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile long syncedUntil;
+    private volatile boolean synced;
+
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            JwtUtil jwtUtil,
+            @Value("${app.revocation.overlap-ms:30000}") long overlapMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jwtUtil = jwtUtil;
+        this.overlapMs = overlapMs;
+    }
+
+    /**
+     * Revoke the given tokens
+     * Tokens that are already invalid or expired need no revocation and are skipped
+     * @return the new revocations, so the calling gateway can apply them immediately
+     */
+    @Transactional
+    public List<RevocationEntry> revoke(String... tokens) {
+        List<RevocationEntry> revoked = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (String token : tokens) {
+            if (token == null || token.isBlank()) {
+                continue;
+            }
+
+            JwtClaims claims;
+            try {
+                claims = jwtUtil.decode(token);
+            } catch (InvalidTokenException e) {
+                log.debug("Skipping revocation of invalid token: {}", e.getMessage());
+                continue;
+            }
+
+            Integer userId = claims.userId();
+            if (claims.id() == null || userId == null) {
+                log.debug("Token without jti or userId cannot be revoked");
+                continue;
+            }
+
+            RevokedToken revokedToken = RevokedToken.builder()
+                    .jti(claims.id())
+                    .userId(userId)
+                    .expiresAt(toLocalDateTime(claims.expiresAtMillis()))
+                    .revokedAt(now)
+                    .build();
+            revokedTokenRepository.save(revokedToken);
+            revoked.add(toEntry(revokedToken));
+            this.revoked.put(revokedToken.getJti(), claims.expiresAtMillis());
+
+            log.info("Revoked {} token {} of user {}",
+                    claims.isRefreshToken() ? "refresh" : "access", claims.id(), userId);
+        }
+
+        return revoked;
+    }
+
+    /**
+     * Whether a token has been revoked - used on refresh
+     * Answered from memory once the first sync has completed
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (revoked.containsKey(jti)) {
+            return true;
+        }
+        return !synced && revokedTokenRepository.existsById(jti);
+    }
+
+    /**
+     * Pick up revocations made by other login instances and prune expired ones
+     * The first sync loads every revocation that still matters
+     */
+    @Scheduled(fixedDelayString = "${app.revocation.poll-interval-ms:2000}")
+    @Transactional(readOnly = true)
+    public void syncRevocations() {
+        long now = System.currentTimeMillis();
+        // revoked_at is stamped by whichever instance handled the logout, allow for clock skew
+        long since = synced ? Math.max(0, syncedUntil - overlapMs) : 0;
+
+        try {
+            for (RevokedToken revokedToken : revokedTokenRepository
+                    .findActiveRevokedSince(toLocalDateTime(since), toLocalDateTime(now))) {
+                revoked.put(revokedToken.getJti(), toEpochMs(revokedToken.getExpiresAt()));
+            }
+            syncedUntil = now;
+
+            if (!synced) {
+                log.info("Token revocation list loaded with {} entries", revoked.size());
+            }
+            synced = true;
+        } catch (Exception e) {
+            log.warn("Failed to sync token revocations: {}", e.getMessage());
+        }
+
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+    }
+
+    /**
+     * Revocations after the given time whose tokens have not expired yet
+     */
+    @Transactional(readOnly = true)
+    public RevocationFeedResponse getRevocationsSince(long sinceEpochMs) {
+        long serverTime = System.currentTimeMillis();
+
+        List<RevocationEntry> revocations = revokedTokenRepository
+                .findActiveRevokedSince(toLocalDateTime(sinceEpochMs), toLocalDateTime(serverTime))
+                .stream()
+                .map(this::toEntry)
+                .toList();
+
+        return new RevocationFeedResponse(revocations, serverTime);
+    }
+
+    /**
+     * Drop revocations of tokens that are expired anyway
+     */
+    @Scheduled(fixedDelayString = "${app.revocation.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void deleteExpiredRevocations() {
+        try {
+            int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+            if (deleted > 0) {
+                log.info("Deleted {} expired token revocations", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to clean up expired token revocations: {}", e.getMessage());
+        }
+    }
+
+    private RevocationEntry toEntry(RevokedToken revokedToken) {
+        return new RevocationEntry(
+                revokedToken.getJti(),
+                toEpochMs(revokedToken.getExpiresAt()),
+                toEpochMs(revokedToken.getRevokedAt())
+        );
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMs(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
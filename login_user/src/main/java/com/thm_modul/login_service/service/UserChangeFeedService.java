@@ -0,0 +1,60 @@
+package com.thm_modul.login_service.service;
+
+import com.thm_modul.login_service.dto.UserChange;
+import com.thm_modul.login_service.dto.UserChangeFeedResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Versioned feed of user directory changes (username, enabled, deletion)
+ * Versions come from app_user_version_seq, maintained by triggers (see init/08-user-change-feed.sql)
+ * Reading from version 0 pages through every user, so the same call seeds and updates a replica
+ */
+@Service
+public class UserChangeFeedService {
+
+    private static final String CHANGES_SINCE =
+            "SELECT id, user_name, enabled, false AS deleted, version FROM app_user WHERE version > ? " +
+            "UNION ALL " +
+            "SELECT id, NULL, false, true, version FROM deleted_user WHERE version > ? " +
+            "ORDER BY version LIMIT ?";
+
+    private static final String LATEST_VERSION =
+            "SELECT GREATEST((SELECT COALESCE(max(version), 0) FROM app_user), " +
+            "(SELECT COALESCE(max(version), 0) FROM deleted_user))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserChangeFeedService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+    }
+
+    public UserChangeFeedResponse getChangesSince(long sinceVersion, int limit) {
+        List<UserChange> changes = jdbcTemplate.query(
+                CHANGES_SINCE,
+                (rs, rowNum) -> new UserChange(
+                        rs.getInt("id"),
+                        rs.getString("user_name"),
+                        rs.getBoolean("enabled"),
+                        rs.getBoolean("deleted"),
+                        rs.getLong("version")
+                ),
+                sinceVersion, sinceVersion, limit
+        );
+
+        long latestVersion = changes.isEmpty() ? sinceVersion : changes.get(changes.size() - 1).version();
+        return new UserChangeFeedResponse(changes, latestVersion, changes.size() == limit);
+    }
+
+    /**
+     * Highest version currently visible, to follow the feed from now on without reading the history
+     */
+    public long getLatestVersion() {
+        Long version = jdbcTemplate.queryForObject(LATEST_VERSION, Long.class);
+        return version != null ? version : 0;
+    }
+}
@@ -0,0 +1,152 @@
+package com.thm_modul.login_service.service;
+
+import com.thm_modul.login_service.dto.ContactDiscoveryRequest;
+import com.thm_modul.login_service.dto.ContactDiscoveryResponse;
+import com.thm_modul.login_service.dto.ContactMatch;
+import com.thm_modul.login_service.dto.UserBatchResponse;
+import com.thm_modul.login_service.dto.UserInfoResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk user lookup - resolves any number of IDs or identifiers with a single query instead of one per user
+ */
+@Slf4j
+@Service
+public class UserLookupService {
+
+    // One array parameter, so the statement is the same for every batch size and stays prepared
+    private static final String FIND_USERS_BY_IDS =
+            "SELECT id, user_name, email FROM app_user WHERE id = ANY(?)";
+
+    // Both arrays are probed through login_identifier's indexes (identifier and identifier_sha256)
+    private static final String FIND_USERS_BY_IDENTIFIERS =
+            "SELECT li.identifier, li.identifier_sha256, u.id, u.user_name " +
+            "FROM login_identifier li JOIN app_user u ON u.id = li.user_id " +
+            "WHERE (li.identifier = ANY(?) OR li.identifier_sha256 = ANY(?)) AND u.enabled = true";
+
+    private static final Pattern SHA256_HEX = Pattern.compile("^[0-9a-f]{64}$");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserLookupService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Look up users by ID, duplicates and null IDs in the request are ignored
+     */
+    public UserBatchResponse findUsers(List<Integer> userIds) {
+        Set<Integer> ids = new LinkedHashSet<>(userIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return new UserBatchResponse(List.of(), List.of());
+        }
+
+        Map<Integer, UserInfoResponse> found = new HashMap<>(ids.size() * 2);
+        jdbcTemplate.query(
+                FIND_USERS_BY_IDS,
+                ps -> {
+                    Array idArray = ps.getConnection().createArrayOf("integer", ids.toArray());
+                    ps.setArray(1, idArray);
+                },
+                rs -> {
+                    int id = rs.getInt("id");
+                    found.put(id, new UserInfoResponse(id, rs.getString("user_name"), rs.getString("email")));
+                }
+        );
+
+        List<UserInfoResponse> users = new ArrayList<>(found.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : ids) {
+            UserInfoResponse user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        log.debug("Batch lookup resolved {} of {} users", users.size(), ids.size());
+        return new UserBatchResponse(users, missingIds);
+    }
+
+    /**
+     * Which address book entries belong to registered (enabled) users
+     * Plain identifiers are matched case-insensitively, hashes are hex SHA-256 of the trimmed lower-cased value;
+     * malformed hashes and blank entries simply do not match
+     */
+    public ContactDiscoveryResponse discoverContacts(ContactDiscoveryRequest request) {
+        Set<String> identifiers = new LinkedHashSet<>();
+        if (request.identifiers() != null) {
+            for (String identifier : request.identifiers()) {
+                if (identifier != null && !identifier.isBlank()) {
+                    identifiers.add(identifier);
+                }
+            }
+        }
+        Set<String> hashes = new LinkedHashSet<>();
+        if (request.identifierHashes() != null) {
+            for (String hash : request.identifierHashes()) {
+                if (hash != null && SHA256_HEX.matcher(hash.toLowerCase(Locale.ROOT)).matches()) {
+                    hashes.add(hash);
+                }
+            }
+        }
+        if (identifiers.isEmpty() && hashes.isEmpty()) {
+            return new ContactDiscoveryResponse(List.of());
+        }
+
+        Object[] normalizedIdentifiers = identifiers.stream().map(UserLookupService::normalize).distinct().toArray();
+        Object[] normalizedHashes = hashes.stream().map(hash -> hash.toLowerCase(Locale.ROOT)).distinct().toArray();
+
+        Map<String, ContactMatch> byIdentifier = new HashMap<>();
+        Map<String, ContactMatch> byHash = new HashMap<>();
+        jdbcTemplate.query(
+                FIND_USERS_BY_IDENTIFIERS,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("varchar", normalizedIdentifiers));
+                    ps.setArray(2, ps.getConnection().createArrayOf("varchar", normalizedHashes));
+                },
+                rs -> {
+                    ContactMatch match = new ContactMatch(null, rs.getInt("id"), rs.getString("user_name"));
+                    byIdentifier.put(rs.getString("identifier"), match);
+                    byHash.put(rs.getString("identifier_sha256"), match);
+                }
+        );
+
+        // Matches in request order, each carrying the identifier exactly as the client sent it
+        List<ContactMatch> matches = new ArrayList<>();
+        for (String identifier : identifiers) {
+            ContactMatch match = byIdentifier.get(normalize(identifier));
+            if (match != null) {
+                matches.add(new ContactMatch(identifier, match.userId(), match.username()));
+            }
+        }
+        for (String hash : hashes) {
+            ContactMatch match = byHash.get(hash.toLowerCase(Locale.ROOT));
+            if (match != null) {
+                matches.add(new ContactMatch(hash, match.userId(), match.username()));
+            }
+        }
+
+        log.debug("Contact discovery matched {} of {} identifiers", matches.size(), identifiers.size() + hashes.size());
+        return new ContactDiscoveryResponse(matches);
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+}
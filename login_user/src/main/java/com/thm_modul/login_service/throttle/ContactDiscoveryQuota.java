@@ -0,0 +1,169 @@
+package com.thm_modul.login_service.throttle;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user quota on contact discovery, so the endpoint cannot be used to enumerate registered users
+ * - Every identifier (plain or hashed) in a request counts against the requesting user over a sliding window
+ * - A request that would exceed the quota is rejected as a whole, before the database lookup
+ * - Counts are exact per user (one small bucket ring each), so a rejection always means this user used the quota,
+ *   however much discovery traffic other users cause
+ * - Users whose window has passed are dropped; at most max-tracked-users are counted (about 400 bytes each),
+ *   beyond that new users are rejected until the cleanup frees room
+ * Counted per login instance, not shared with peers: with N instances a user gets at most N times the quota
+ */
+@Slf4j
+@Service
+public class ContactDiscoveryQuota {
+
+    private final ConcurrentHashMap<Integer, UserWindow> windows = new ConcurrentHashMap<>();
+    private final int bucketCount;
+    private final long bucketMs;
+    private final int maxIdentifiers;
+    private final int maxTrackedUsers;
+
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    public ContactDiscoveryQuota(
+            @Value("${app.contact-discovery.quota.window-ms:86400000}") long windowMs,
+            @Value("${app.contact-discovery.quota.buckets:24}") int buckets,
+            @Value("${app.contact-discovery.quota.max-identifiers:10000}") int maxIdentifiers,
+            @Value("${app.contact-discovery.quota.max-tracked-users:100000}") int maxTrackedUsers) {
+        this.bucketCount = buckets;
+        this.bucketMs = Math.max(1, windowMs / buckets);
+        this.maxIdentifiers = maxIdentifiers;
+        this.maxTrackedUsers = maxTrackedUsers;
+
+        log.info("Contact discovery quota: {} identifiers per user per {} ms, up to {} users tracked",
+                maxIdentifiers, windowMs, maxTrackedUsers);
+    }
+
+    /**
+     * Count the request's identifiers against the user, or reject it if they do not fit into the quota
+     * @throws ContactDiscoveryQuotaExceededException when over quota
+     */
+    public void acquire(int userId, int identifiers) {
+        long now = System.currentTimeMillis();
+        long epoch = now / bucketMs;
+
+        if (!windows.containsKey(userId) && windows.size() >= maxTrackedUsers) {
+            removeExpired(epoch);
+            if (windows.size() >= maxTrackedUsers) {
+                rejectedRequests.incrementAndGet();
+                log.warn("Contact discovery quota is tracking {} users, rejecting user {}", windows.size(), userId);
+                throw new ContactDiscoveryQuotaExceededException("Contact discovery is busy", secondsUntil(now, epoch + 1));
+            }
+        }
+
+        long[] retryAtEpoch = new long[1];
+        // Checked and counted under the map's lock for this user, so cleanup cannot drop a window being updated
+        windows.compute(userId, (id, window) -> {
+            UserWindow target = window != null ? window : new UserWindow(bucketCount);
+            retryAtEpoch[0] = target.tryAdd(epoch, identifiers, maxIdentifiers);
+            return retryAtEpoch[0] == 0 ? target : window;
+        });
+
+        if (retryAtEpoch[0] != 0) {
+            rejectedRequests.incrementAndGet();
+            throw new ContactDiscoveryQuotaExceededException("Contact discovery quota exceeded",
+                    secondsUntil(now, retryAtEpoch[0]));
+        }
+    }
+
+    /**
+     * Drop users without lookups in the current window
+     */
+    @Scheduled(fixedDelayString = "${app.contact-discovery.quota.cleanup-interval-ms:600000}")
+    public void cleanup() {
+        removeExpired(System.currentTimeMillis() / bucketMs);
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    public int getTrackedUsers() {
+        return windows.size();
+    }
+
+    private void removeExpired(long epoch) {
+        for (Integer userId : windows.keySet()) {
+            windows.computeIfPresent(userId, (id, window) -> window.isEmpty(epoch) ? null : window);
+        }
+    }
+
+    private long secondsUntil(long nowMs, long epoch) {
+        return Math.max(1, (epoch * bucketMs - nowMs + 999) / 1000);
+    }
+
+    /**
+     * Lookups of one user per bucket of the window, a ring indexed by bucket epoch
+     * Only accessed inside ConcurrentHashMap.compute / computeIfPresent for its key
+     */
+    private static final class UserWindow {
+
+        private final int[] counts;
+        private final long[] epochs;
+
+        private UserWindow(int bucketCount) {
+            this.counts = new int[bucketCount];
+            this.epochs = new long[bucketCount];
+            Arrays.fill(epochs, -1);
+        }
+
+        /**
+         * Add the identifiers if they fit into the quota
+         * @return 0 if added, otherwise the bucket epoch from which enough lookups have left the window
+         */
+        private long tryAdd(long epoch, int identifiers, int maxIdentifiers) {
+            long oldest = epoch - counts.length + 1;
+            int total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (epochs[i] >= oldest) {
+                    total += counts[i];
+                }
+            }
+
+            if (total + identifiers <= maxIdentifiers) {
+                int slot = (int) Math.floorMod(epoch, (long) counts.length);
+                if (epochs[slot] != epoch) {
+                    epochs[slot] = epoch;
+                    counts[slot] = 0;
+                }
+                counts[slot] += identifiers;
+                return 0;
+            }
+
+            // Walk from the oldest bucket until enough lookups would have expired
+            int excess = total + identifiers - maxIdentifiers;
+            for (long bucket = oldest; bucket <= epoch; bucket++) {
+                int slot = (int) Math.floorMod(bucket, (long) counts.length);
+                if (epochs[slot] == bucket) {
+                    excess -= counts[slot];
+                }
+                if (excess <= 0) {
+                    return bucket + counts.length;
+                }
+            }
+            // More than the whole quota in one request, never fits
+            return epoch + counts.length;
+        }
+
+        private boolean isEmpty(long epoch) {
+            long oldest = epoch - counts.length + 1;
+            for (int i = 0; i < counts.length; i++) {
+                if (epochs[i] >= oldest && counts[i] > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
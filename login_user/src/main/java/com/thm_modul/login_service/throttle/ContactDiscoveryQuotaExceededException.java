@@ -0,0 +1,19 @@
+package com.thm_modul.login_service.throttle;
+
+/**
+ * Thrown when a user has looked up too many address book entries within the quota window
+ * Mapped to 429 with Retry-After
+ */
+public class ContactDiscoveryQuotaExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ContactDiscoveryQuotaExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,222 @@
+package com.thm_modul.login_service.throttle;
+
+import com.thm_modul.login_service.dto.LoginFailureReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Brute-force protection for login
+ * - Failed logins are counted per account (user ID) and per client IP over a sliding window
+ * - Counts live in fixed-size sketches (SlidingWindowSketch), so an attack with many keys cannot grow memory
+ * - Attempts over the IP limit are rejected before the database lookup, attempts over the account limit
+ *   right after the identifier lookup; both before any BCrypt work
+ * - The account counter is keyed on the resolved user, so username and email share one budget;
+ *   identifiers matching no user are counted by their normalized form, so throttling does not reveal
+ *   which accounts exist
+ * - Failures are pushed to the other login instances in batches, so both replicas enforce the same counts
+ */
+@Slf4j
+@Service
+public class LoginThrottle {
+
+    private static final String FAILURES_PATH = "/internal/v1/auth/throttle/failures";
+
+    private final SlidingWindowSketch accountFailures;
+    private final SlidingWindowSketch ipFailures;
+    private final int maxAccountFailures;
+    private final int maxIpFailures;
+    private final int maxPendingReports;
+    private final List<String> peers;
+    private final RestTemplate peerClient;
+
+    // Local failures not yet sent to peers
+    private final Queue<Long> pendingAccountKeys = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> pendingIpKeys = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicLong rejectedAttempts = new AtomicLong();
+    private final AtomicLong droppedReports = new AtomicLong();
+
+    @Value("${app.gateway.secret}")
+    private String gatewaySecret;
+
+    public LoginThrottle(
+            @Value("${app.login-throttle.window-ms:900000}") long windowMs,
+            @Value("${app.login-throttle.buckets:15}") int buckets,
+            @Value("${app.login-throttle.sketch-width:16384}") int sketchWidth,
+            @Value("${app.login-throttle.sketch-depth:4}") int sketchDepth,
+            @Value("${app.login-throttle.max-account-failures:10}") int maxAccountFailures,
+            @Value("${app.login-throttle.max-ip-failures:100}") int maxIpFailures,
+            @Value("${app.login-throttle.max-pending-reports:100000}") int maxPendingReports,
+            @Value("${app.login-throttle.peers:}") String peers) {
+        this.accountFailures = new SlidingWindowSketch(sketchDepth, sketchWidth, windowMs, buckets);
+        this.ipFailures = new SlidingWindowSketch(sketchDepth, sketchWidth, windowMs, buckets);
+        this.maxAccountFailures = maxAccountFailures;
+        this.maxIpFailures = maxIpFailures;
+        this.maxPendingReports = maxPendingReports;
+        this.peers = Arrays.stream(peers.split(","))
+                .map(String::trim)
+                .filter(peer -> !peer.isEmpty())
+                .map(peer -> peer.endsWith("/") ? peer.substring(0, peer.length() - 1) : peer)
+                .collect(Collectors.toList());
+
+        // Dedicated client with short timeouts - a slow peer must never delay the push loop for long
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(500);
+        factory.setReadTimeout(1000);
+        this.peerClient = new RestTemplate(factory);
+
+        log.info("Login throttle: {} account / {} IP failures per {} ms, {} KB of sketches, peers: {}",
+                maxAccountFailures, maxIpFailures, windowMs,
+                (accountFailures.getMemoryBytes() + ipFailures.getMemoryBytes()) / 1024, this.peers);
+    }
+
+    /**
+     * Reject the attempt if the client IP is over its failure limit, checked before the user is looked up
+     * @throws LoginThrottledException when throttled
+     */
+    public void checkIpAllowed(String clientIp) {
+        if (clientIp != null && ipFailures.estimate(ipKey(clientIp), System.currentTimeMillis()) >= maxIpFailures) {
+            rejectedAttempts.incrementAndGet();
+            throw new LoginThrottledException("Too many failed login attempts from this address",
+                    ipFailures.secondsUntilNextBucket(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Reject the attempt if the account is over its failure limit, checked once the identifier is resolved
+     * @param userId the resolved account, null if the identifier matched no user
+     * @throws LoginThrottledException when throttled
+     */
+    public void checkAccountAllowed(Integer userId, String identifier) {
+        if (accountFailures.estimate(accountKey(userId, identifier), System.currentTimeMillis()) >= maxAccountFailures) {
+            rejectedAttempts.incrementAndGet();
+            throw new LoginThrottledException("Too many failed login attempts for this account",
+                    accountFailures.secondsUntilNextBucket(System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Count a failed login locally and queue it for the peers
+     * @param userId the resolved account, null if the identifier matched no user (then the identifier is counted)
+     */
+    public void recordFailure(Integer userId, String identifier, String clientIp) {
+        long now = System.currentTimeMillis();
+
+        long accountKey = accountKey(userId, identifier);
+        accountFailures.add(accountKey, now);
+        enqueue(pendingAccountKeys, accountKey);
+
+        if (clientIp != null) {
+            long ipKey = ipKey(clientIp);
+            ipFailures.add(ipKey, now);
+            enqueue(pendingIpKeys, ipKey);
+        }
+    }
+
+    /**
+     * Apply failures reported by a peer, they are not forwarded again
+     */
+    public void applyPeerReport(LoginFailureReport report) {
+        if (report.accountKeys() != null) {
+            for (Long key : report.accountKeys()) {
+                accountFailures.add(key, report.observedAt());
+            }
+        }
+        if (report.ipKeys() != null) {
+            for (Long key : report.ipKeys()) {
+                ipFailures.add(key, report.observedAt());
+            }
+        }
+    }
+
+    /**
+     * Send the failures collected since the last push to every peer
+     * A peer that is down simply misses the batch, its own counts still protect it
+     */
+    @Scheduled(fixedDelayString = "${app.login-throttle.sync-interval-ms:1000}")
+    public void pushToPeers() {
+        if (pendingCount.get() == 0) {
+            return;
+        }
+
+        List<Long> accountKeys = drain(pendingAccountKeys);
+        List<Long> ipKeys = drain(pendingIpKeys);
+        if (peers.isEmpty() || (accountKeys.isEmpty() && ipKeys.isEmpty())) {
+            return;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Gateway-Secret", gatewaySecret);
+        HttpEntity<LoginFailureReport> request = new HttpEntity<>(
+                new LoginFailureReport(accountKeys, ipKeys, System.currentTimeMillis()), headers);
+
+        for (String peer : peers) {
+            try {
+                peerClient.postForEntity(peer + FAILURES_PATH, request, Void.class);
+            } catch (Exception e) {
+                log.warn("Failed to share {} login failures with {}: {}",
+                        accountKeys.size() + ipKeys.size(), peer, e.getMessage());
+            }
+        }
+    }
+
+    public long getRejectedAttempts() {
+        return rejectedAttempts.get();
+    }
+
+    public long getDroppedReports() {
+        return droppedReports.get();
+    }
+
+    private void enqueue(Queue<Long> queue, long key) {
+        if (peers.isEmpty()) {
+            return;
+        }
+        // Bounded so a flood of failures cannot grow memory while a peer is unreachable
+        if (pendingCount.incrementAndGet() > maxPendingReports) {
+            pendingCount.decrementAndGet();
+            droppedReports.incrementAndGet();
+            return;
+        }
+        queue.add(key);
+    }
+
+    private List<Long> drain(Queue<Long> queue) {
+        List<Long> keys = new ArrayList<>();
+        Long key;
+        while ((key = queue.poll()) != null) {
+            keys.add(key);
+            pendingCount.decrementAndGet();
+        }
+        return keys;
+    }
+
+    private static long accountKey(Integer userId, String identifier) {
+        if (userId != null) {
+            return SlidingWindowSketch.hash("account:" + userId);
+        }
+        // Same normalization as the login_identifier lookup
+        return SlidingWindowSketch.hash("identifier:" + (identifier == null ? "" : identifier.toLowerCase(Locale.ROOT)));
+    }
+
+    private static long ipKey(String clientIp) {
+        return SlidingWindowSketch.hash("ip:" + clientIp);
+    }
+}
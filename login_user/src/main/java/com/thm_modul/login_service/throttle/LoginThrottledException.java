@@ -0,0 +1,19 @@
+package com.thm_modul.login_service.throttle;
+
+/**
+ * Thrown when an account or client IP has too many recent failed logins
+ * Mapped to 429 with Retry-After, raised before any hashing (for the IP limit before the database lookup)
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
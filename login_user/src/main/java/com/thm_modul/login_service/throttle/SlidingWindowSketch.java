@@ -0,0 +1,146 @@
+package com.thm_modul.login_service.throttle;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate per-key event counts over a sliding time window, in fixed memory
+ * - The window is split into buckets, each bucket is a count-min sketch (depth rows x width counters)
+ * - Counters are independent atomics, so concurrent updates only contend when they hit the same cell
+ * - A bucket is cleared when the window slides over it, estimates never undercount within the window
+ * Memory: buckets * depth * width * 4 bytes, independent of the number of keys
+ */
+final class SlidingWindowSketch {
+
+    private final int depth;
+    private final int widthMask;
+    private final int bucketCount;
+    private final long bucketMs;
+
+    private final AtomicIntegerArray[] buckets;
+    // Bucket epoch (time / bucketMs) each bucket currently holds counts for
+    private final AtomicLongArray bucketEpochs;
+
+    SlidingWindowSketch(int depth, int width, long windowMs, int bucketCount) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Sketch width must be a power of two: " + width);
+        }
+        this.depth = depth;
+        this.widthMask = width - 1;
+        this.bucketCount = bucketCount;
+        this.bucketMs = Math.max(1, windowMs / bucketCount);
+
+        this.buckets = new AtomicIntegerArray[bucketCount];
+        this.bucketEpochs = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new AtomicIntegerArray(depth * width);
+            bucketEpochs.set(i, -1);
+        }
+    }
+
+    /**
+     * Count an event for the key at the given time
+     * Events older than the window are ignored
+     */
+    void add(long keyHash, long timeMs) {
+        long epoch = timeMs / bucketMs;
+        long currentEpoch = System.currentTimeMillis() / bucketMs;
+        if (epoch <= currentEpoch - bucketCount || epoch > currentEpoch + 1) {
+            return;
+        }
+
+        AtomicIntegerArray bucket = bucketFor(epoch);
+        if (bucket == null) {
+            return;
+        }
+
+        int h1 = (int) keyHash;
+        int h2 = (int) (keyHash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            int column = (h1 + row * h2) & widthMask;
+            bucket.incrementAndGet(row * (widthMask + 1) + column);
+        }
+    }
+
+    /**
+     * Estimated number of events for the key within the window ending now
+     * Never lower than the true count, may be higher on hash collisions
+     */
+    int estimate(long keyHash, long nowMs) {
+        long currentEpoch = nowMs / bucketMs;
+        long oldestEpoch = currentEpoch - bucketCount + 1;
+
+        int h1 = (int) keyHash;
+        int h2 = (int) (keyHash >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            int index = row * (widthMask + 1) + ((h1 + row * h2) & widthMask);
+            int sum = 0;
+            for (int slot = 0; slot < bucketCount; slot++) {
+                long epoch = bucketEpochs.get(slot);
+                if (epoch >= oldestEpoch && epoch <= currentEpoch + 1) {
+                    sum += buckets[slot].get(index);
+                }
+            }
+            estimate = Math.min(estimate, sum);
+        }
+        return estimate;
+    }
+
+    /**
+     * Counts fall as old buckets leave the window, the next bucket boundary is the earliest relief
+     */
+    long secondsUntilNextBucket(long nowMs) {
+        long untilNextBucket = bucketMs - (nowMs % bucketMs);
+        return Math.max(1, (untilNextBucket + 999) / 1000);
+    }
+
+    long getMemoryBytes() {
+        return (long) bucketCount * depth * (widthMask + 1) * Integer.BYTES;
+    }
+
+    /**
+     * Bucket for the epoch, clearing it first if it still holds an older epoch
+     * Returns null if the slot already moved on to a newer epoch (a very late event)
+     */
+    private AtomicIntegerArray bucketFor(long epoch) {
+        int slot = (int) Math.floorMod(epoch, (long) bucketCount);
+        AtomicIntegerArray bucket = buckets[slot];
+
+        long held = bucketEpochs.get(slot);
+        if (held == epoch) {
+            return bucket;
+        }
+        if (held > epoch) {
+            return null;
+        }
+
+        // Rotation happens once per bucket period, a lock per slot keeps it simple
+        synchronized (bucket) {
+            held = bucketEpochs.get(slot);
+            if (held < epoch) {
+                for (int i = 0; i < bucket.length(); i++) {
+                    bucket.set(i, 0);
+                }
+                bucketEpochs.set(slot, epoch);
+            }
+            return bucketEpochs.get(slot) == epoch ? bucket : null;
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash with a final mix, stable across JVMs so replicas agree on keys
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,19 +1,20 @@
 package com.thm_modul.login_service.util;
 
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import com.thm_modul.jwt_codec.Hs256JwtCodec;
+import com.thm_modul.jwt_codec.InvalidTokenException;
+import com.thm_modul.jwt_codec.JwtClaims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
 
+/**
+ * Issues and reads tokens through the shared HS256 codec
+ */
 @Slf4j
 @Component
 public class JwtUtil {
@@ -27,19 +28,49 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
 
-    private Key key;
+    private Hs256JwtCodec codec;
 
     @PostConstruct
     public void init() {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.codec = new Hs256JwtCodec(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verify and decode a token
+     * @throws InvalidTokenException if the token is invalid or expired
+     */
+    public JwtClaims decode(String token) {
+        return codec.decode(token);
+    }
+
+    /**
+     * Validate a token and return its claims in a single parse
+     * @param token Token JWT
+     * @return claims, or null if the signature is invalid or the token expired
+     */
+    public JwtClaims parseValidClaims(String token) {
+        try {
+            return codec.decode(token);
+        } catch (InvalidTokenException e) {
+            log.error("JWT validation failed: {}", e.getMessage());
+            return null;
+        }
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return codec.decode(token).subject();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return new Date(codec.decode(token).expiresAtMillis());
+    }
+
+    /**
+     * Extract the token ID (jti claim) used for revocation
+     * Tokens issued before jti was introduced return null
+     */
+    public String extractJti(String token) {
+        return codec.decode(token).id();
     }
 
     /**
@@ -49,38 +80,15 @@ public class JwtUtil {
      */
     public Integer getUserIdFromToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            Object userIdObj = claims.get("userId");
-            if (userIdObj != null) {
-                return Integer.valueOf(userIdObj.toString());
-            }
-            return null;
-        } catch (Exception e) {
+            return codec.decode(token).userId();
+        } catch (InvalidTokenException e) {
             log.error("Error extracting user ID from token: {}", e.getMessage());
             return null;
         }
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername(), jwtExpiration);
+        return generateToken(userDetails.getUsername(), null);
     }
 
     /**
@@ -90,15 +98,21 @@ public class JwtUtil {
      * @return token JWT
      */
     public String generateToken(UserDetails userDetails, Integer userId) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", userId);
-        return createToken(claims, userDetails.getUsername(), jwtExpiration);
+        return generateToken(userDetails.getUsername(), userId);
+    }
+
+    /**
+     * Token with user ID included, built from an already loaded user row
+     * @param username subject of the token
+     * @param userId user ID to include
+     * @return token JWT
+     */
+    public String generateToken(String username, Integer userId) {
+        return codec.encode(JwtClaims.access(username, userId, System.currentTimeMillis(), jwtExpiration));
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "refresh");
-        return createToken(claims, userDetails.getUsername(), refreshExpiration);
+        return generateRefreshToken(userDetails.getUsername(), null);
     }
 
     /**
@@ -108,34 +122,25 @@ public class JwtUtil {
      * @return refresh token JWT
      */
     public String generateRefreshToken(UserDetails userDetails, Integer userId) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "refresh");
-        claims.put("userId", userId);
-        return createToken(claims, userDetails.getUsername(), refreshExpiration);
+        return generateRefreshToken(userDetails.getUsername(), userId);
     }
 
-    private String createToken(Map<String, Object> claims, String subject, Long expiration) {
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+    /**
+     * Refresh token with user ID included, built from an already loaded user row
+     * @param username subject of the token
+     * @param userId user ID to include
+     * @return refresh token JWT
+     */
+    public String generateRefreshToken(String username, Integer userId) {
+        return codec.encode(JwtClaims.refresh(username, userId, System.currentTimeMillis(), refreshExpiration));
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        JwtClaims claims = parseValidClaims(token);
+        return claims != null && userDetails.getUsername().equals(claims.subject());
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            log.error("JWT validation failed: {}", e.getMessage());
-            return false;
-        }
+        return parseValidClaims(token) != null;
     }
 }
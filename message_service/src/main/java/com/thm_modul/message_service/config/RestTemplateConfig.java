@@ -1,22 +1,38 @@
 package com.thm_modul.message_service.config;
 
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * The login service answers in Smile (binary JSON) when asked to, JSON stays the fallback
+     */
+    private static final String INTERNAL_ACCEPT = "application/x-jackson-smile, application/json;q=0.9";
+
     /**
      * RestTemplate bean for inter-service communication
      * Configured with appropriate timeouts for internal service calls
      */
     @Bean
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(Jackson2ObjectMapperBuilder objectMapperBuilder) {
         RestTemplate restTemplate = new RestTemplate();
         restTemplate.setRequestFactory(clientHttpRequestFactory());
+        restTemplate.getMessageConverters().add(0, new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilder.factory(new SmileFactory()).build()
+        ));
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            request.getHeaders().set(HttpHeaders.ACCEPT, INTERNAL_ACCEPT);
+            return execution.execute(request, body);
+        });
         return restTemplate;
     }
 
@@ -0,0 +1,188 @@
+package com.thm_modul.message_service.service;
+
+import com.thm_modul.message_service.util.UserMetadataMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory replica of the user directory (id -> username, enabled) kept by login_user
+ * - Seeded by paging through the login service's change feed from version 0
+ * - Kept current by polling the feed for versions after the last one applied
+ * - Re-seeded periodically as a safety net, the new copy replaces the old one in one step
+ * Until the first seed completes isReady() is false and callers use their database / HTTP fallbacks
+ * Entries live in a UserMetadataMap (flags = enabled bit, stamp = feed version), about 60 bytes per user
+ */
+@Slf4j
+@Service
+public class UserDirectory {
+
+    private static final int ENABLED = 1;
+
+    private final RestTemplate restTemplate;
+    private final int pageSize;
+    private final long versionOverlap;
+    private final boolean offHeap;
+
+    private volatile UserMetadataMap entries = new UserMetadataMap();
+    private volatile long appliedVersion;
+    private volatile boolean ready;
+    private volatile boolean reseedRequested;
+
+    @Value("${app.gateway.secret:shared_secret_key}")
+    private String gatewaySecret;
+
+    @Value("${app.login-service.url:http://hps_login_user:8082}")
+    private String loginServiceUrl;
+
+    public UserDirectory(
+            RestTemplate restTemplate,
+            @Value("${app.user-directory.page-size:5000}") int pageSize,
+            @Value("${app.user-directory.version-overlap:1000}") long versionOverlap,
+            @Value("${app.user-directory.off-heap:false}") boolean offHeap) {
+        this.restTemplate = restTemplate;
+        this.pageSize = pageSize;
+        this.versionOverlap = versionOverlap;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Whether the directory has been seeded and can answer lookups
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether the user is enabled, or null if the user is unknown (or deleted)
+     */
+    public Boolean isEnabled(int userId) {
+        int flags = entries.getFlags(userId);
+        return flags == UserMetadataMap.ABSENT ? null : (flags & ENABLED) != 0;
+    }
+
+    /**
+     * Username of the user, or null if the user is unknown (or deleted)
+     */
+    public String getUsername(int userId) {
+        return entries.getUsername(userId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getAppliedVersion() {
+        return appliedVersion;
+    }
+
+    /**
+     * Seed on the first run, afterwards apply the changes since the last poll
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.user-directory.poll-interval-ms:2000}")
+    public void sync() {
+        try {
+            if (!ready || reseedRequested) {
+                seed();
+            } else {
+                // Versions are taken at write time but become visible at commit time, so a slow
+                // transaction can surface behind newer versions - re-reading a window catches it
+                applyChanges(entries, Math.max(0, appliedVersion - versionOverlap));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sync user directory: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Schedule a full reload on the next sync
+     */
+    @Scheduled(initialDelayString = "${app.user-directory.reseed-interval-ms:3600000}",
+            fixedDelayString = "${app.user-directory.reseed-interval-ms:3600000}")
+    public void requestReseed() {
+        reseedRequested = true;
+    }
+
+    private void seed() {
+        long started = System.currentTimeMillis();
+        UserMetadataMap fresh = new UserMetadataMap(entries.size(), offHeap);
+
+        long version = applyChanges(fresh, 0);
+
+        entries = fresh;
+        appliedVersion = version;
+        reseedRequested = false;
+        ready = true;
+        log.info("User directory loaded with {} users ({} KB) up to version {} in {} ms",
+                fresh.size(), fresh.memoryBytes() / 1024, version, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Apply all feed pages after the given version to the map
+     * @return the latest version applied
+     */
+    private long applyChanges(UserMetadataMap target, long sinceVersion) {
+        long version = sinceVersion;
+        boolean hasMore = true;
+
+        while (hasMore) {
+            Map<String, Object> page = fetchChanges(version);
+            List<Map<String, Object>> changes = (List<Map<String, Object>>) page.get("changes");
+
+            for (Map<String, Object> change : changes) {
+                apply(target, change);
+            }
+
+            version = ((Number) page.get("latestVersion")).longValue();
+            hasMore = Boolean.TRUE.equals(page.get("hasMore"));
+        }
+
+        if (target == entries && version > appliedVersion) {
+            appliedVersion = version;
+        }
+        return version;
+    }
+
+    private void apply(UserMetadataMap target, Map<String, Object> change) {
+        int userId = ((Number) change.get("userId")).intValue();
+        long version = ((Number) change.get("version")).longValue();
+
+        if (Boolean.TRUE.equals(change.get("deleted"))) {
+            target.remove(userId);
+            return;
+        }
+
+        int flags = Boolean.TRUE.equals(change.get("enabled")) ? ENABLED : 0;
+        // Re-read windows deliver entries again, never let an older version win
+        target.putIfNewer(userId, (String) change.get("username"), flags, version);
+    }
+
+    private Map<String, Object> fetchChanges(long sinceVersion) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Gateway-Secret", gatewaySecret);
+
+        String url = loginServiceUrl + "/internal/v1/auth/users/changes?since=" + sinceVersion + "&limit=" + pageSize;
+        ResponseEntity<Map> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                Map.class
+        );
+
+        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null
+                && Boolean.TRUE.equals(response.getBody().get("success"))) {
+            return (Map<String, Object>) response.getBody().get("data");
+        }
+        throw new IllegalStateException("Invalid response from login service change feed");
+    }
+}
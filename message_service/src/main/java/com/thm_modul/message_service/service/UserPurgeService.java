@@ -0,0 +1,207 @@
+package com.thm_modul.message_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background removal of deleted accounts queued in user_purge by the login service
+ * - Messages are deleted in small batches, each in its own short transaction: sent messages first,
+ *   then received ones, walking the (sender_id / receiver_id, created_at) indexes in keyset order
+ * - The keyset position is stored with every batch, so a restart resumes without rescanning deleted rows
+ * - Once no messages are left the app_user row is deleted, which cascades only to small tables
+ * - Throttled: a pause after every batch at least as long as the batch took, and a time budget per run
+ * Several instances can purge at once, each batch locks its user_purge row with SKIP LOCKED
+ * Progress is exported as user_purge.* metrics and kept per user in user_purge.deleted_messages
+ */
+@Slf4j
+@Service
+public class UserPurgeService {
+
+    private static final String STAGE_SENT = "SENT";
+    private static final String STAGE_RECEIVED = "RECEIVED";
+
+    private static final String CLAIM_NEXT =
+            "SELECT user_id, stage, cursor_created_at, cursor_id FROM user_purge " +
+            "WHERE stage <> 'DONE' ORDER BY requested_at LIMIT 1 FOR UPDATE SKIP LOCKED";
+
+    // created_at >= ? lets the index range scan start at the cursor, the row comparison breaks ties by id
+    // Messages without created_at are left to the final cascade
+    private static final String DELETE_BATCH =
+            "DELETE FROM messages WHERE id IN (" +
+            "SELECT id FROM messages WHERE %s = ? AND created_at IS NOT NULL%s " +
+            "ORDER BY created_at, id LIMIT ?) " +
+            "RETURNING id, created_at";
+
+    private static final String AFTER_CURSOR = " AND created_at >= ? AND (created_at, id) > (?, ?)";
+
+    private static final String SAVE_PROGRESS =
+            "UPDATE user_purge SET deleted_messages = deleted_messages + ?, cursor_created_at = ?, cursor_id = ?, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE user_id = ?";
+
+    private static final String NEXT_STAGE =
+            "UPDATE user_purge SET stage = ?, cursor_created_at = NULL, cursor_id = NULL, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE user_id = ?";
+
+    private static final String DELETE_USER =
+            "DELETE FROM app_user WHERE id = ?";
+
+    private static final String COMPLETE =
+            "UPDATE user_purge SET stage = 'DONE', cursor_created_at = NULL, cursor_id = NULL, " +
+            "updated_at = CURRENT_TIMESTAMP, completed_at = CURRENT_TIMESTAMP WHERE user_id = ?";
+
+    private static final String COUNT_OPEN =
+            "SELECT count(*) FROM user_purge WHERE stage <> 'DONE'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final long maxRunMs;
+
+    private final Counter deletedMessages;
+    private final Counter completedUsers;
+    private final Timer batchTimer;
+    private final AtomicLong pendingUsers = new AtomicLong();
+
+    public UserPurgeService(
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.user-purge.enabled:true}") boolean enabled,
+            @Value("${app.user-purge.batch-size:1000}") int batchSize,
+            @Value("${app.user-purge.batch-pause-ms:50}") long batchPauseMs,
+            @Value("${app.user-purge.max-run-ms:10000}") long maxRunMs) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.batchPauseMs = batchPauseMs;
+        this.maxRunMs = maxRunMs;
+
+        this.deletedMessages = Counter.builder("user_purge.messages.deleted")
+                .description("Messages deleted by the background purge of deleted accounts")
+                .register(meterRegistry);
+        this.completedUsers = Counter.builder("user_purge.users.completed")
+                .description("Deleted accounts fully purged")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("user_purge.batch")
+                .description("Duration of one purge batch transaction")
+                .register(meterRegistry);
+        meterRegistry.gauge("user_purge.users.pending", pendingUsers);
+    }
+
+    /**
+     * Run batches until no purge is open or the run's time budget is used up
+     */
+    @Scheduled(initialDelayString = "${app.user-purge.poll-interval-ms:5000}",
+            fixedDelayString = "${app.user-purge.poll-interval-ms:5000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            long deadline = System.currentTimeMillis() + maxRunMs;
+            while (System.currentTimeMillis() < deadline) {
+                long started = System.nanoTime();
+                Boolean worked = transactionTemplate.execute(status -> purgeNextBatch());
+                long elapsedNanos = System.nanoTime() - started;
+
+                if (!Boolean.TRUE.equals(worked)) {
+                    break;
+                }
+                batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+                // Keeps the purge at no more than about half of one connection, however slow batches get
+                Thread.sleep(Math.max(batchPauseMs, TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+            }
+
+            Long open = jdbcTemplate.queryForObject(COUNT_OPEN, Long.class);
+            pendingUsers.set(open != null ? open : 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Failed to purge deleted users: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One batch of the oldest open purge that no other instance is working on
+     * @return false if there was nothing to do
+     */
+    private boolean purgeNextBatch() {
+        List<PurgeJob> jobs = jdbcTemplate.query(CLAIM_NEXT, (rs, rowNum) -> new PurgeJob(
+                rs.getInt("user_id"),
+                rs.getString("stage"),
+                rs.getTimestamp("cursor_created_at"),
+                rs.getObject("cursor_id", Long.class)));
+        if (jobs.isEmpty()) {
+            return false;
+        }
+
+        PurgeJob job = jobs.get(0);
+        Batch batch = deleteBatch(job);
+
+        if (batch.deleted() > 0) {
+            jdbcTemplate.update(SAVE_PROGRESS, batch.deleted(), batch.lastCreatedAt(), batch.lastId(), job.userId());
+            deletedMessages.increment(batch.deleted());
+        } else if (STAGE_SENT.equals(job.stage())) {
+            jdbcTemplate.update(NEXT_STAGE, STAGE_RECEIVED, job.userId());
+        } else {
+            // Cascades to messages written after the stages passed them (if any) and to login_identifier,
+            // the deleted_user tombstone lets the user directories drop the user
+            jdbcTemplate.update(DELETE_USER, job.userId());
+            jdbcTemplate.update(COMPLETE, job.userId());
+            completedUsers.increment();
+            log.info("Purged deleted user {}", job.userId());
+        }
+        return true;
+    }
+
+    private Batch deleteBatch(PurgeJob job) {
+        String column = STAGE_SENT.equals(job.stage()) ? "sender_id" : "receiver_id";
+        boolean resume = job.cursorCreatedAt() != null && job.cursorId() != null;
+        String sql = String.format(DELETE_BATCH, column, resume ? AFTER_CURSOR : "");
+
+        Object[] args = resume
+                ? new Object[]{job.userId(), job.cursorCreatedAt(), job.cursorCreatedAt(), job.cursorId(), batchSize}
+                : new Object[]{job.userId(), batchSize};
+
+        List<DeletedMessage> deleted = jdbcTemplate.query(sql, (rs, rowNum) -> new DeletedMessage(
+                rs.getLong("id"),
+                rs.getTimestamp("created_at")), args);
+
+        // RETURNING rows come in no particular order, the new cursor is the largest (created_at, id)
+        DeletedMessage last = null;
+        for (DeletedMessage message : deleted) {
+            if (last == null || message.createdAt().after(last.createdAt())
+                    || (message.createdAt().equals(last.createdAt()) && message.id() > last.id())) {
+                last = message;
+            }
+        }
+        return last == null
+                ? new Batch(0, null, null)
+                : new Batch(deleted.size(), last.createdAt(), last.id());
+    }
+
+    private record PurgeJob(int userId, String stage, Timestamp cursorCreatedAt, Long cursorId) {}
+
+    private record DeletedMessage(long id, Timestamp createdAt) {}
+
+    private record Batch(int deleted, Timestamp lastCreatedAt, Long lastId) {}
+}
@@ -1,5 +1,6 @@
 package com.thm_modul.message_service.service;
 
+import com.thm_modul.message_service.util.UserMetadataMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,7 +9,9 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -17,8 +20,11 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UserValidationService {
 
+    private static final int EXISTS = 1;
+
     private final JdbcTemplate jdbcTemplate;
     private final RestTemplate restTemplate;
+    private final UserDirectory userDirectory;
 
     @Value("${app.user-cache.enabled:true}")
     private boolean cacheEnabled;
@@ -32,25 +38,32 @@ public class UserValidationService {
     @Value("${app.login-service.url:http://hps_login_user:8082}")
     private String loginServiceUrl;
 
-    // Simple in-memory cache for user validation
-    private final Map<Integer, CacheEntry> userCache = new HashMap<>();
-    private final Map<Integer, String> usernameCache = new HashMap<>();
+    // In-memory caches for user validation, primitive-keyed to stay small with millions of users
+    // userCache: flags = exists bit, stamp = time cached; usernameCache: username only
+    private final UserMetadataMap userCache = new UserMetadataMap();
+    private final UserMetadataMap usernameCache = new UserMetadataMap();
 
     /**
      * Check if a user exists using multiple strategies:
-     * 1. Local cache (if enabled)
-     * 2. Direct database query (primary method)
-     * 3. Login service call (fallback)
+     * 1. Replicated user directory (answers for every known user once seeded)
+     * 2. Local cache (if enabled)
+     * 3. Direct database query (primary method before the directory is seeded, and for brand-new users)
+     * 4. Login service call (fallback)
      */
     public boolean userExists(Integer userId) {
         if (userId == null) {
             return false;
         }
 
+        Boolean enabled = userDirectory.isReady() ? userDirectory.isEnabled(userId) : null;
+        if (enabled != null) {
+            return enabled;
+        }
+
         // Check cache first if enabled
         if (cacheEnabled && isCacheValid(userId)) {
             log.debug("User {} found in cache", userId);
-            return userCache.get(userId).exists;
+            return userCache.getFlags(userId) == EXISTS;
         }
 
         // Primary method: Direct database query
@@ -63,7 +76,7 @@ public class UserValidationService {
 
         // Cache the result if caching is enabled
         if (cacheEnabled) {
-            userCache.put(userId, new CacheEntry(exists, System.currentTimeMillis()));
+            userCache.put(userId, null, exists ? EXISTS : 0, System.currentTimeMillis());
         }
 
         log.debug("User {} existence check result: {}", userId, exists);
@@ -72,16 +85,23 @@ public class UserValidationService {
 
     /**
      * Get username for a given user ID
-     * Uses local database first, then login service as fallback
+     * Uses the replicated user directory, then local database, then login service as fallback
+     * Like the database query, only enabled users have a username here
      */
     public String getUsername(Integer userId) {
         if (userId == null) {
             return null;
         }
 
+        Boolean enabled = userDirectory.isReady() ? userDirectory.isEnabled(userId) : null;
+        if (enabled != null) {
+            return enabled ? userDirectory.getUsername(userId) : null;
+        }
+
         // Check username cache first
-        if (cacheEnabled && usernameCache.containsKey(userId)) {
-            return usernameCache.get(userId);
+        String cachedUsername = cacheEnabled ? usernameCache.getUsername(userId) : null;
+        if (cachedUsername != null) {
+            return cachedUsername;
         }
 
         // Try local database first
@@ -94,7 +114,7 @@ public class UserValidationService {
 
         // Cache the result
         if (cacheEnabled && username != null) {
-            usernameCache.put(userId, username);
+            usernameCache.put(userId, username, 0, 0L);
         }
 
         log.debug("Username for user {}: {}", userId, username);
@@ -103,6 +123,7 @@ public class UserValidationService {
 
     /**
      * Get usernames for multiple user IDs
+     * Directory and cache first, then one database query and one login service call for all remaining IDs
      */
     public Map<Integer, String> getUsernames(List<Integer> userIds) {
         Map<Integer, String> result = new HashMap<>();
@@ -111,11 +132,42 @@ public class UserValidationService {
             return result;
         }
 
-        for (Integer userId : userIds) {
-            String username = getUsername(userId);
+        boolean directoryReady = userDirectory.isReady();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer userId : new LinkedHashSet<>(userIds)) {
+            if (userId == null) {
+                continue;
+            }
+            Boolean enabled = directoryReady ? userDirectory.isEnabled(userId) : null;
+            if (Boolean.FALSE.equals(enabled)) {
+                // Disabled users are left out, as the database query does
+                continue;
+            }
+            String username = enabled != null ? userDirectory.getUsername(userId) : null;
+            if (username == null && cacheEnabled) {
+                username = usernameCache.getUsername(userId);
+            }
             if (username != null) {
                 result.put(userId, username);
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Integer, String> loaded = getUsernamesFromDatabase(missing);
+
+            if (loaded.size() < missing.size()) {
+                List<Integer> stillMissing = missing.stream()
+                        .filter(userId -> !loaded.containsKey(userId))
+                        .toList();
+                loaded.putAll(getUsernamesFromLoginService(stillMissing));
+            }
+
+            if (cacheEnabled) {
+                loaded.forEach((userId, username) -> usernameCache.put(userId, username, 0, 0L));
             }
+            result.putAll(loaded);
         }
 
         log.debug("Retrieved {} usernames out of {} requested", result.size(), userIds.size());
@@ -177,6 +229,26 @@ public class UserValidationService {
         }
     }
 
+    /**
+     * Get usernames for several users from local database with a single query
+     */
+    private Map<Integer, String> getUsernamesFromDatabase(List<Integer> userIds) {
+        Map<Integer, String> usernames = new HashMap<>();
+        try {
+            String sql = "SELECT id, user_name FROM app_user WHERE id = ANY(?) AND enabled = true";
+            jdbcTemplate.query(
+                    sql,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", userIds.toArray())),
+                    rs -> {
+                        usernames.put(rs.getInt("id"), rs.getString("user_name"));
+                    }
+            );
+        } catch (Exception e) {
+            log.warn("Database username query failed for {} users: {}", userIds.size(), e.getMessage());
+        }
+        return usernames;
+    }
+
     /**
      * Check user existence via login service call
      */
@@ -247,6 +319,42 @@ public class UserValidationService {
         }
     }
 
+    /**
+     * Get usernames for several users from login service in one call
+     */
+    private Map<Integer, String> getUsernamesFromLoginService(List<Integer> userIds) {
+        Map<Integer, String> usernames = new HashMap<>();
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Gateway-Secret", gatewaySecret);
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(Map.of("userIds", userIds), headers);
+
+            String url = loginServiceUrl + "/internal/v1/auth/users/batch";
+            ResponseEntity<Map> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    entity,
+                    Map.class
+            );
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                Map<String, Object> body = response.getBody();
+                Map<String, Object> data = (Map<String, Object>) body.get("data");
+                if (data != null) {
+                    for (Map<String, Object> user : (List<Map<String, Object>>) data.get("users")) {
+                        usernames.put(((Number) user.get("userId")).intValue(), (String) user.get("username"));
+                    }
+                }
+            }
+
+        } catch (Exception e) {
+            log.warn("Login service call failed for username retrieval of {} users: {}", userIds.size(), e.getMessage());
+        }
+        return usernames;
+    }
+
     /**
      * Clear cache for a specific user
      */
@@ -273,25 +381,12 @@ public class UserValidationService {
      * Check if cache entry is valid (not expired)
      */
     private boolean isCacheValid(Integer userId) {
-        CacheEntry entry = userCache.get(userId);
-        if (entry == null) {
+        long timestamp = userCache.getStamp(userId);
+        if (timestamp == Long.MIN_VALUE) {
             return false;
         }
 
-        long age = System.currentTimeMillis() - entry.timestamp;
+        long age = System.currentTimeMillis() - timestamp;
         return age < cacheTtl;
     }
-
-    /**
-     * Internal cache entry class
-     */
-    private static class CacheEntry {
-        final boolean exists;
-        final long timestamp;
-
-        CacheEntry(boolean exists, long timestamp) {
-            this.exists = exists;
-            this.timestamp = timestamp;
-        }
-    }
 }
\ No newline at end of file
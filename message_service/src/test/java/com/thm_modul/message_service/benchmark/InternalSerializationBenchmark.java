@@ -0,0 +1,138 @@
+package com.thm_modul.message_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.thm_modul.message_service.dto.ApiResponse;
+import com.thm_modul.message_service.dto.ConversationResponse;
+import com.thm_modul.message_service.dto.MessageResponse;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes on the wire and serialization CPU of JSON vs Smile for the internal message payloads
+ * - write: the service serializing the DTOs
+ * - read: the gateway parsing the body into a Map
+ * Run with: mvn -f message_service/pom.xml test-compile exec:java
+ *   -Dexec.mainClass=com.thm_modul.message_service.benchmark.InternalSerializationBenchmark -Dexec.classpathScope=test
+ * The payloadBytes counter is the encoded size of the payload in the given format
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class InternalSerializationBenchmark {
+
+    @Param({"message", "conversation", "summaries"})
+    public String payloadType;
+
+    @Param({"json", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private Object payload;
+    private byte[] encoded;
+
+    /**
+     * Encoded size as an auxiliary result, set on every call (single benchmark thread)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long payloadBytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = "smile".equals(format)
+                ? Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build()
+                : Jackson2ObjectMapperBuilder.json().build();
+
+        payload = switch (payloadType) {
+            case "message" -> ApiResponse.success("Message sent successfully", message(1));
+            case "conversation" -> ApiResponse.success("Conversation retrieved", conversation(500));
+            case "summaries" -> ApiResponse.success("Conversations retrieved", summaries(50));
+            default -> throw new IllegalArgumentException("Unknown payload type: " + payloadType);
+        };
+        encoded = mapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] write(Size size) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(payload);
+        size.payloadBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Map<?, ?> read(Size size) throws IOException {
+        size.payloadBytes = encoded.length;
+        return mapper.readValue(encoded, Map.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InternalSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+    private static ConversationResponse conversation(int messageCount) {
+        List<MessageResponse> messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            messages.add(message(i));
+        }
+        MessageResponse last = messages.get(messages.size() - 1);
+        return ConversationResponse.full(2, "bob", last.content(), last.createdAt(), messageCount, messages);
+    }
+
+    private static List<ConversationResponse> summaries(int count) {
+        List<ConversationResponse> summaries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            summaries.add(ConversationResponse.summary(i + 2, "user" + i, "See you tomorrow at the station",
+                    LocalDateTime.now().minusMinutes(i), 40 + i));
+        }
+        return summaries;
+    }
+
+    private static MessageResponse message(long id) {
+        LocalDateTime createdAt = LocalDateTime.now().minusMinutes(id);
+        boolean outgoing = id % 2 == 0;
+        return MessageResponse.from(
+                id,
+                outgoing ? 1 : 2,
+                outgoing ? "alice" : "bob",
+                outgoing ? 2 : 1,
+                outgoing ? "bob" : "alice",
+                "Message number " + id + " - are we still meeting later today?",
+                createdAt,
+                createdAt
+        );
+    }
+}
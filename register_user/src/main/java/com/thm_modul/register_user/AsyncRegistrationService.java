@@ -0,0 +1,156 @@
+package com.thm_modul.register_user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Async registration: validation runs inline, hashing and insert run on a bounded queue
+ * A sign-up spike then fills the queue and drains at the pool's pace instead of holding gateway and
+ * Tomcat threads for the whole BCrypt hash; beyond the queue's capacity requests are refused with 503
+ * Outcomes are kept in registration_request so any instance can answer a status poll
+ * A request that waited in the queue longer than the pending timeout is dropped and marked failed when it is
+ * dequeued, matching what status polls report for it by then
+ */
+@Slf4j
+@Service
+public class AsyncRegistrationService {
+
+    private final UserService userService;
+    private final AvailabilityService availabilityService;
+    private final RegistrationRequestRepository registrationRequestRepository;
+    private final long pendingTimeoutMs;
+    private final long retentionMs;
+    private final ThreadPoolExecutor registrationPool;
+
+    public AsyncRegistrationService(
+            UserService userService,
+            AvailabilityService availabilityService,
+            RegistrationRequestRepository registrationRequestRepository,
+            @Value("${app.async-registration.threads:0}") int threads,
+            @Value("${app.async-registration.queue-capacity:10000}") int queueCapacity,
+            @Value("${app.async-registration.pending-timeout-ms:600000}") long pendingTimeoutMs,
+            @Value("${app.async-registration.retention-ms:86400000}") long retentionMs) {
+        this.userService = userService;
+        this.availabilityService = availabilityService;
+        this.registrationRequestRepository = registrationRequestRepository;
+        this.pendingTimeoutMs = pendingTimeoutMs;
+        this.retentionMs = retentionMs;
+
+        // 0 = one thread per available core, hashing is pure CPU work
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.registrationPool = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "registration-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        log.info("Async registration pool started with {} threads and a queue of {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Validate the request and queue it
+     * @return the registration ID with status PENDING
+     * @throws IllegalArgumentException on invalid input or an identifier that is already taken
+     * @throws RegistrationQueueFullException if the queue is full
+     */
+    public RegistrationStatusResponse submit(UserRegistrationRequest request) {
+        userService.validateRegistration(request);
+
+        // Taken identifiers fail fast, mostly answered from the availability filter
+        AvailabilityResponse availability = availabilityService.check(request.userName(), request.email());
+        if (Boolean.FALSE.equals(availability.emailAvailable())) {
+            throw new IllegalArgumentException("Email is already registered");
+        }
+        if (Boolean.FALSE.equals(availability.userNameAvailable())) {
+            throw new IllegalArgumentException("Username is already taken");
+        }
+
+        UUID registrationId = UUID.randomUUID();
+        registrationRequestRepository.insertPending(registrationId);
+
+        try {
+            registrationPool.execute(() -> register(registrationId, request));
+        } catch (RejectedExecutionException e) {
+            registrationRequestRepository.delete(registrationId);
+            log.warn("Registration queue full ({} queued), rejecting request", registrationPool.getQueue().size());
+            throw new RegistrationQueueFullException("Too many registrations in progress, please retry later");
+        }
+
+        return new RegistrationStatusResponse(registrationId, RegistrationStatusResponse.PENDING, null, null);
+    }
+
+    /**
+     * Status of a registration, or null if the ID is unknown (or older than the retention)
+     */
+    public RegistrationStatusResponse getStatus(UUID registrationId) {
+        return registrationRequestRepository.findById(registrationId, pendingTimeoutMs);
+    }
+
+    public int getQueuedRegistrations() {
+        return registrationPool.getQueue().size();
+    }
+
+    /**
+     * Remove outcomes that clients had more than enough time to poll
+     */
+    @Scheduled(fixedDelayString = "${app.async-registration.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        try {
+            int removed = registrationRequestRepository.deleteOlderThan(retentionMs);
+            if (removed > 0) {
+                log.debug("Removed {} old registration requests", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to clean up registration requests: {}", e.getMessage());
+        }
+    }
+
+    private void register(UUID registrationId, UserRegistrationRequest request) {
+        try {
+            if (!registrationRequestRepository.claim(registrationId, pendingTimeoutMs)) {
+                registrationRequestRepository.markFailed(registrationId, RegistrationRequestRepository.EXPIRED_ERROR);
+                log.warn("Async registration {} waited longer than {} ms in the queue, dropped",
+                        registrationId, pendingTimeoutMs);
+                return;
+            }
+
+            Integer userId = userService.createUser(request);
+            registrationRequestRepository.markCompleted(registrationId, userId);
+            log.debug("Async registration {} completed for user {}", registrationId, userId);
+
+        } catch (IllegalArgumentException e) {
+            registrationRequestRepository.markFailed(registrationId, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("Async registration {} failed: {}", registrationId, e.getMessage(), e);
+            try {
+                registrationRequestRepository.markFailed(registrationId, "Internal error during registration");
+            } catch (Exception statusError) {
+                // Reported as failed by the pending timeout
+                log.warn("Could not record failure of registration {}: {}", registrationId, statusError.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        registrationPool.shutdown();
+    }
+}
@@ -0,0 +1,19 @@
+package com.thm_modul.register_user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Availability of a username and/or email for the sign-up form
+ * Fields of an identifier that was not asked for are left out
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AvailabilityResponse(
+        String userName,
+        Boolean userNameAvailable,
+        String email,
+        Boolean emailAvailable,
+        List<String> suggestions
+) {
+}
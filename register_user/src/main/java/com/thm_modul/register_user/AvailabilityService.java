@@ -0,0 +1,218 @@
+package com.thm_modul.register_user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Username / email availability for the sign-up form, answered from a Bloom filter of taken identifiers
+ * - A filter miss means the identifier is free, only possible hits are confirmed against login_identifier
+ * - Loaded on startup, updated on every registration on this instance and by polling the app_user version
+ *   column for registrations on other instances
+ * - Rebuilt periodically, and early once more identifiers were added than it was sized for
+ * Until the first load completes every check goes to the database
+ */
+@Slf4j
+@Service
+public class AvailabilityService {
+
+    private static final int MAX_USERNAME_LENGTH = 50;
+    private static final int SUGGESTION_ATTEMPTS = 20;
+
+    private final UserJdbcRepository userJdbcRepository;
+    private final long minExpectedInsertions;
+    private final double falsePositiveRate;
+    private final long versionOverlap;
+    private final int syncBatchSize;
+    private final int suggestionCount;
+
+    private volatile BloomFilter filter;
+    private final AtomicLong added = new AtomicLong();
+    private volatile long appliedVersion;
+    private volatile boolean rebuildRequested;
+
+    public AvailabilityService(
+            UserJdbcRepository userJdbcRepository,
+            @Value("${app.availability.expected-insertions:1000000}") long minExpectedInsertions,
+            @Value("${app.availability.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${app.availability.version-overlap:1000}") long versionOverlap,
+            @Value("${app.availability.sync-batch-size:10000}") int syncBatchSize,
+            @Value("${app.availability.suggestions:3}") int suggestionCount) {
+        this.userJdbcRepository = userJdbcRepository;
+        this.minExpectedInsertions = minExpectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.versionOverlap = versionOverlap;
+        this.syncBatchSize = syncBatchSize;
+        this.suggestionCount = suggestionCount;
+    }
+
+    /**
+     * Check a username and/or an email, at least one must be given
+     * A taken username comes with suggestions that are known to be free
+     * @throws IllegalArgumentException if neither is given or one is malformed
+     */
+    public AvailabilityResponse check(String userName, String email) {
+        boolean checkUserName = userName != null && !userName.isBlank();
+        boolean checkEmail = email != null && !email.isBlank();
+        if (!checkUserName && !checkEmail) {
+            throw new IllegalArgumentException("Username or email is required");
+        }
+        if (checkUserName) {
+            UserService.validateUsername(userName);
+        }
+        if (checkEmail) {
+            UserService.validateEmail(email);
+        }
+
+        String userNameKey = checkUserName ? normalize(userName) : null;
+        String emailKey = checkEmail ? normalize(email) : null;
+
+        BloomFilter current = filter;
+        boolean userNameMaybeTaken = checkUserName && (current == null || current.mightContain(userNameKey));
+        boolean emailMaybeTaken = checkEmail && (current == null || current.mightContain(emailKey));
+
+        // One query confirms both possible hits, "" never matches an identifier
+        List<String> taken = List.of();
+        if (userNameMaybeTaken || emailMaybeTaken) {
+            taken = userJdbcRepository.findTakenIdentifiers(
+                    userNameMaybeTaken ? userNameKey : "",
+                    emailMaybeTaken ? emailKey : "");
+        }
+
+        Boolean userNameAvailable = checkUserName ? !taken.contains(userNameKey) : null;
+        Boolean emailAvailable = checkEmail ? !taken.contains(emailKey) : null;
+        List<String> suggestions = Boolean.FALSE.equals(userNameAvailable) ? suggest(userName, current) : null;
+
+        return new AvailabilityResponse(
+                checkUserName ? userName : null,
+                userNameAvailable,
+                checkEmail ? email : null,
+                emailAvailable,
+                suggestions);
+    }
+
+    /**
+     * Mark a freshly registered user's identifiers as taken
+     */
+    public void recordTaken(String userName, String email) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return;
+        }
+        current.put(normalize(userName));
+        current.put(normalize(email));
+        if (added.addAndGet(2) > current.getExpectedInsertions()) {
+            rebuildRequested = true;
+        }
+    }
+
+    /**
+     * Load on the first run, afterwards add the identifiers of users registered or renamed elsewhere
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.availability.sync-interval-ms:2000}")
+    public void sync() {
+        try {
+            if (filter == null || rebuildRequested) {
+                rebuild();
+            } else {
+                addChanges();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sync availability filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Schedule a rebuild on the next sync, drops identifiers of renamed and deleted users
+     */
+    @Scheduled(initialDelayString = "${app.availability.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.availability.rebuild-interval-ms:3600000}")
+    public void requestRebuild() {
+        rebuildRequested = true;
+    }
+
+    private void rebuild() {
+        long started = System.currentTimeMillis();
+        // Read the version first: anything committed while loading is picked up by the next sync
+        long version = userJdbcRepository.findLatestVersion();
+
+        List<String> identifiers = new ArrayList<>();
+        userJdbcRepository.forEachIdentifier(identifiers::add);
+
+        // Room to grow until the next rebuild
+        BloomFilter fresh = new BloomFilter(Math.max(minExpectedInsertions, identifiers.size() * 2L), falsePositiveRate);
+        for (String identifier : identifiers) {
+            fresh.put(identifier);
+        }
+
+        added.set(identifiers.size());
+        filter = fresh;
+        appliedVersion = version;
+        rebuildRequested = false;
+        log.info("Availability filter loaded with {} identifiers ({} KB) in {} ms",
+                identifiers.size(), fresh.sizeInBytes() / 1024, System.currentTimeMillis() - started);
+    }
+
+    private void addChanges() {
+        BloomFilter current = filter;
+        // Versions are taken at write time but become visible at commit time, re-reading a window catches
+        // slow transactions; adding an identifier twice is harmless, but only new versions count towards
+        // capacity, otherwise the re-read window alone would trigger a rebuild every few minutes
+        long applied = appliedVersion;
+        long since = Math.max(0, applied - versionOverlap);
+        long version = userJdbcRepository.forEachIdentifierChangedSince(since, syncBatchSize, (identifier, rowVersion) -> {
+            current.put(identifier);
+            if (rowVersion > applied) {
+                added.incrementAndGet();
+            }
+        });
+
+        if (version > appliedVersion) {
+            appliedVersion = version;
+        }
+        if (added.get() > current.getExpectedInsertions()) {
+            rebuildRequested = true;
+        }
+    }
+
+    /**
+     * Variants of a taken username that the filter proves free (no database query needed)
+     */
+    private List<String> suggest(String userName, BloomFilter current) {
+        if (current == null || suggestionCount <= 0) {
+            return List.of();
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<String> suggestions = new LinkedHashSet<>();
+        for (int attempt = 0; attempt < SUGGESTION_ATTEMPTS && suggestions.size() < suggestionCount; attempt++) {
+            String suffix = switch (attempt % 3) {
+                case 0 -> String.valueOf(random.nextInt(10, 100));
+                case 1 -> "_" + random.nextInt(100, 1000);
+                default -> String.valueOf(random.nextInt(1000, 10000));
+            };
+            String base = userName.length() + suffix.length() > MAX_USERNAME_LENGTH
+                    ? userName.substring(0, MAX_USERNAME_LENGTH - suffix.length())
+                    : userName;
+            String candidate = base + suffix;
+
+            if (!current.mightContain(normalize(candidate))) {
+                suggestions.add(candidate);
+            }
+        }
+        return new ArrayList<>(suggestions);
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,5 +1,6 @@
 package com.thm_modul.register_user;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -11,9 +12,11 @@ public class BeanConfig {
     /**
      * Password encoder bean for hashing user passwords
      * This is the only security-related bean we keep from the original SecurityConfig
+     * The cost is pinned per deployment (app.password-hashing.strength, same on every login / register replica)
+     * and chosen offline with service_support's BCryptCalibration
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.password-hashing.strength:12}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
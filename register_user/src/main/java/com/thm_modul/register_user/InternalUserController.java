@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.UUID;
 
 @Slf4j
 @RestController
@@ -14,21 +15,31 @@ import javax.validation.Valid;
 public class InternalUserController {
 
     private final UserService userService;
+    private final AvailabilityService availabilityService;
+    private final UserImportService userImportService;
+    private final AsyncRegistrationService asyncRegistrationService;
 
     @Value("${app.gateway.secret:shared_secret_key}")
     private String gatewaySecret;
 
-    public InternalUserController(UserService userService) {
+    public InternalUserController(UserService userService, AvailabilityService availabilityService,
+                                  UserImportService userImportService,
+                                  AsyncRegistrationService asyncRegistrationService) {
         this.userService = userService;
+        this.availabilityService = availabilityService;
+        this.userImportService = userImportService;
+        this.asyncRegistrationService = asyncRegistrationService;
     }
 
     /**
      * Register a new user - called internally by API Gateway
      * Validates that the request comes from the API Gateway
+     * With async=true only validation runs inline: the answer is 202 with a registration ID to poll
      */
     @PostMapping
     public ResponseEntity<ApiResponse> registerUser(
             @Valid @RequestBody UserRegistrationRequest userRegistrationRequest,
+            @RequestParam(defaultValue = "false") boolean async,
             HttpServletRequest request) {
 
         // Validate that request comes from API Gateway
@@ -41,6 +52,13 @@ public class InternalUserController {
 
         try {
             log.info("Internal request: Registering user: {}", userRegistrationRequest.userName());
+
+            if (async) {
+                RegistrationStatusResponse accepted = asyncRegistrationService.submit(userRegistrationRequest);
+                return ResponseEntity.accepted()
+                        .body(ApiResponse.success("Registration accepted", accepted));
+            }
+
             userService.registerUser(userRegistrationRequest);
 
             return ResponseEntity.ok(
@@ -52,6 +70,11 @@ public class InternalUserController {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Registration failed: " + e.getMessage()));
 
+        } catch (RegistrationQueueFullException e) {
+            return ResponseEntity.status(503)
+                    .header("Retry-After", "5")
+                    .body(ApiResponse.error(e.getMessage()));
+
         } catch (Exception e) {
             log.error("Unexpected error during user registration: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -59,6 +82,106 @@ public class InternalUserController {
         }
     }
 
+    /**
+     * Status of an async registration - called internally by API Gateway
+     * A primary key lookup, cheap enough for clients to poll every second or two
+     */
+    @GetMapping("/status/{registrationId}")
+    public ResponseEntity<ApiResponse> getRegistrationStatus(
+            @PathVariable UUID registrationId,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            log.warn("Unauthorized internal request for registration status from IP: {}",
+                    getClientIP(request));
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden - Invalid gateway authentication"));
+        }
+
+        try {
+            RegistrationStatusResponse status = asyncRegistrationService.getStatus(registrationId);
+            if (status == null) {
+                return ResponseEntity.status(404)
+                        .body(ApiResponse.error("Registration not found"));
+            }
+            return ResponseEntity.ok(ApiResponse.success("Registration status", status));
+
+        } catch (Exception e) {
+            log.error("Unexpected error reading registration status: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Internal server error reading registration status"));
+        }
+    }
+
+    /**
+     * Check whether a username and/or email can still be registered - called internally by API Gateway
+     * Answered from memory in almost all cases, meant to be called while the user types
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<ApiResponse> checkAvailability(
+            @RequestParam(required = false) String userName,
+            @RequestParam(required = false) String email,
+            HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            log.warn("Unauthorized internal request to check availability from IP: {}",
+                    getClientIP(request));
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden - Invalid gateway authentication"));
+        }
+
+        try {
+            AvailabilityResponse availability = availabilityService.check(userName, email);
+            return ResponseEntity.ok(ApiResponse.success("Availability checked", availability));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Unexpected error during availability check: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Internal server error during availability check"));
+        }
+    }
+
+    /**
+     * Bulk import of users (partner onboarding) - internal only, not routed by the API Gateway
+     * The body is streamed: text/csv with a header row, or application/x-ndjson with one user object per line
+     * Rows carry either a plain password (hashed here) or an existing BCrypt passwordHash
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ApiResponse> importUsers(HttpServletRequest request) {
+
+        if (!validateGatewayRequest(request)) {
+            log.warn("Unauthorized internal request to import users from IP: {}",
+                    getClientIP(request));
+            return ResponseEntity.status(403)
+                    .body(ApiResponse.error("Forbidden - Invalid gateway authentication"));
+        }
+
+        UserImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+
+        try {
+            log.info("Internal request: Importing users ({})", format);
+            UserImportReport report = userImportService.importUsers(request.getInputStream(), format);
+
+            return ResponseEntity.ok(ApiResponse.success("Import finished", report));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("User import rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Import failed: " + e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Unexpected error during user import: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Internal server error during import"));
+        }
+    }
+
     /**
      * Health check endpoint for internal monitoring
      */
@@ -0,0 +1,12 @@
+package com.thm_modul.register_user;
+
+/**
+ * Thrown when the async registration queue is full
+ * The controller translates it into 503 Service Unavailable with Retry-After
+ */
+public class RegistrationQueueFullException extends RuntimeException {
+
+    public RegistrationQueueFullException(String message) {
+        super(message);
+    }
+}
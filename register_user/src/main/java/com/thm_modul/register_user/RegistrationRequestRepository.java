@@ -0,0 +1,101 @@
+package com.thm_modul.register_user;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * registration_request rows of async registrations, shared by all register instances
+ */
+@Repository
+public class RegistrationRequestRepository {
+
+    private static final String INSERT_PENDING =
+            "INSERT INTO registration_request (id, status) VALUES (?, 'PENDING')";
+
+    // Error reported for a request that was not started within the pending timeout
+    static final String EXPIRED_ERROR = "Registration was not completed, please register again";
+
+    // Taken by the worker before hashing; a request that waited in the queue past the timeout is not started,
+    // so it cannot create the user after status polls already reported it as failed
+    private static final String CLAIM =
+            "UPDATE registration_request SET status = 'PROCESSING', updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND status = 'PENDING' AND created_at >= CURRENT_TIMESTAMP - make_interval(secs => ?)";
+
+    private static final String UPDATE_STATUS =
+            "UPDATE registration_request SET status = ?, user_id = ?, error = ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ?";
+
+    // A request not started within the timeout will never be (see CLAIM), one processing for longer than the
+    // timeout was lost (e.g. the instance restarted); both are reported as failed, processing as pending
+    private static final String FIND_BY_ID =
+            "SELECT id, user_id, error, " +
+            "CASE WHEN status = 'PENDING' AND created_at < CURRENT_TIMESTAMP - make_interval(secs => ?) " +
+            "OR status = 'PROCESSING' AND updated_at < CURRENT_TIMESTAMP - make_interval(secs => ?) " +
+            "THEN 'EXPIRED' WHEN status = 'PROCESSING' THEN 'PENDING' ELSE status END AS status " +
+            "FROM registration_request WHERE id = ?";
+
+    private static final String DELETE_BY_ID = "DELETE FROM registration_request WHERE id = ?";
+
+    private static final String DELETE_OLDER_THAN =
+            "DELETE FROM registration_request WHERE created_at < CURRENT_TIMESTAMP - make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RegistrationRequestRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void insertPending(UUID id) {
+        jdbcTemplate.update(INSERT_PENDING, id);
+    }
+
+    /**
+     * Mark the request as being processed
+     * @return false if it is no longer pending or waited longer than the timeout, it must then not be run
+     */
+    public boolean claim(UUID id, long pendingTimeoutMs) {
+        return jdbcTemplate.update(CLAIM, id, pendingTimeoutMs / 1000.0) == 1;
+    }
+
+    public void markCompleted(UUID id, Integer userId) {
+        jdbcTemplate.update(UPDATE_STATUS, RegistrationStatusResponse.COMPLETED, userId, null, id);
+    }
+
+    public void markFailed(UUID id, String error) {
+        jdbcTemplate.update(UPDATE_STATUS, RegistrationStatusResponse.FAILED, null, error, id);
+    }
+
+    /**
+     * Status by ID, or null if unknown
+     */
+    public RegistrationStatusResponse findById(UUID id, long pendingTimeoutMs) {
+        List<RegistrationStatusResponse> rows = jdbcTemplate.query(
+                FIND_BY_ID,
+                (rs, rowNum) -> {
+                    String status = rs.getString("status");
+                    if ("EXPIRED".equals(status)) {
+                        return new RegistrationStatusResponse(id, RegistrationStatusResponse.FAILED, null,
+                                EXPIRED_ERROR);
+                    }
+                    int userId = rs.getInt("user_id");
+                    return new RegistrationStatusResponse(id, status, rs.wasNull() ? null : userId, rs.getString("error"));
+                },
+                pendingTimeoutMs / 1000.0, pendingTimeoutMs / 1000.0, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public void delete(UUID id) {
+        jdbcTemplate.update(DELETE_BY_ID, id);
+    }
+
+    /**
+     * @return number of rows removed
+     */
+    public int deleteOlderThan(long retentionMs) {
+        return jdbcTemplate.update(DELETE_OLDER_THAN, retentionMs / 1000.0);
+    }
+}
@@ -0,0 +1,21 @@
+package com.thm_modul.register_user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * State of an async registration: PENDING, COMPLETED (with userId) or FAILED (with error)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RegistrationStatusResponse(
+        UUID registrationId,
+        String status,
+        Integer userId,
+        String error
+) {
+
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+}
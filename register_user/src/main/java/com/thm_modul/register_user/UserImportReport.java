@@ -0,0 +1,17 @@
+package com.thm_modul.register_user;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: counts plus one entry per rejected row (row numbers exclude the CSV header)
+ */
+public record UserImportReport(
+        int totalRows,
+        int imported,
+        int failed,
+        List<RowError> errors
+) {
+
+    public record RowError(int row, String error) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.thm_modul.register_user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads validated import rows through COPY into a temporary staging table and merges them into app_user
+ * with one statement - no per-row round trips, and conflicts become a per-row result instead of an error
+ */
+@Slf4j
+@Repository
+public class UserImportRepository {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final int MAX_ATTEMPTS = 2;
+
+    private static final String CREATE_STAGING =
+            "CREATE TEMP TABLE user_import_staging (" +
+            "row_no INTEGER PRIMARY KEY, user_name VARCHAR(255), email VARCHAR(255), password VARCHAR(255)" +
+            ") ON COMMIT DROP";
+
+    private static final String COPY_STAGING =
+            "COPY user_import_staging (row_no, user_name, email, password) FROM STDIN WITH (FORMAT csv)";
+
+    // Rows whose username or email is already taken (case-insensitively, through login_identifier) or repeats an
+    // identifier of an earlier row in the file are skipped up front: the login_identifier trigger would otherwise
+    // abort the whole statement. ON CONFLICT still covers exact duplicates inserted concurrently.
+    // Inserted ids are matched back through candidates, whose usernames are unique within the file, so a row
+    // repeating an earlier row's username never picks up that row's id
+    private static final String MERGE_STAGING = """
+            WITH staged_identifiers AS (
+                SELECT lower(user_name) AS identifier, row_no FROM user_import_staging
+                UNION ALL
+                SELECT lower(email), row_no FROM user_import_staging WHERE lower(email) <> lower(user_name)
+            ),
+            duplicates AS (
+                SELECT DISTINCT si.row_no
+                FROM staged_identifiers si
+                JOIN (SELECT identifier, min(row_no) AS first_row FROM staged_identifiers GROUP BY identifier) f
+                  ON f.identifier = si.identifier AND si.row_no > f.first_row
+            ),
+            candidates AS (
+                SELECT s.row_no, s.user_name, s.email, s.password
+                FROM user_import_staging s
+                WHERE s.row_no NOT IN (SELECT row_no FROM duplicates)
+                  AND NOT EXISTS (
+                      SELECT 1 FROM login_identifier li
+                      WHERE li.identifier IN (lower(s.user_name), lower(s.email)))
+            ),
+            inserted AS (
+                INSERT INTO app_user (user_name, email, password)
+                SELECT user_name, email, password FROM candidates ORDER BY row_no
+                ON CONFLICT DO NOTHING
+                RETURNING id, user_name
+            )
+            SELECT s.row_no, i.id,
+                   CASE
+                       WHEN s.row_no IN (SELECT row_no FROM duplicates) THEN 'Duplicate username or email in import'
+                       WHEN i.id IS NOT NULL THEN NULL
+                       WHEN EXISTS (SELECT 1 FROM login_identifier li WHERE li.identifier = lower(s.email))
+                           THEN 'Email is already registered'
+                       WHEN EXISTS (SELECT 1 FROM login_identifier li WHERE li.identifier = lower(s.user_name))
+                           THEN 'Username is already taken'
+                       ELSE 'User with this email or username already exists'
+                   END AS error
+            FROM user_import_staging s
+            LEFT JOIN candidates c ON c.row_no = s.row_no
+            LEFT JOIN inserted i ON lower(i.user_name) = lower(c.user_name)
+            """;
+
+    private final DataSource dataSource;
+
+    public UserImportRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Insert the rows in one transaction
+     * @return per row number: the error message, or null if the user was inserted
+     */
+    public Map<Integer, String> copyAndMerge(List<PreparedRow> rows) throws SQLException {
+        String copyData = toCsv(rows);
+
+        for (int attempt = 1; ; attempt++) {
+            try (Connection connection = dataSource.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    Map<Integer, String> result = copyAndMerge(connection, copyData, rows.size());
+                    connection.commit();
+                    return result;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    // A concurrent registration can still collide case-insensitively in the login_identifier
+                    // trigger, the retry sees it in login_identifier and skips the row
+                    if (UNIQUE_VIOLATION.equals(e.getSQLState()) && attempt < MAX_ATTEMPTS) {
+                        log.info("Import chunk hit a concurrent registration, retrying");
+                        continue;
+                    }
+                    throw e;
+                } catch (IOException e) {
+                    connection.rollback();
+                    throw new SQLException("Failed to stream import rows to the database", e);
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+        }
+    }
+
+    private Map<Integer, String> copyAndMerge(Connection connection, String copyData, int rowCount)
+            throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING);
+        }
+
+        long copied = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn(COPY_STAGING, new StringReader(copyData));
+        log.debug("Copied {} of {} rows into staging", copied, rowCount);
+
+        Map<Integer, String> result = new HashMap<>(rowCount * 2);
+        try (PreparedStatement statement = connection.prepareStatement(MERGE_STAGING);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                result.put(rs.getInt("row_no"), rs.getString("error"));
+            }
+        }
+        return result;
+    }
+
+    private static String toCsv(List<PreparedRow> rows) {
+        StringBuilder csv = new StringBuilder(rows.size() * 120);
+        for (PreparedRow row : rows) {
+            csv.append(row.rowNumber()).append(',');
+            appendQuoted(csv, row.userName()).append(',');
+            appendQuoted(csv, row.email()).append(',');
+            appendQuoted(csv, row.passwordHash()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        return csv.append('"');
+    }
+
+    /**
+     * A validated row ready to be inserted
+     */
+    public record PreparedRow(int rowNumber, String userName, String email, String passwordHash) {
+    }
+}
@@ -0,0 +1,299 @@
+package com.thm_modul.register_user;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk import of users from a streamed CSV or NDJSON file
+ * - The file is read in chunks, so memory stays flat however large the import is
+ * - Rows are validated and hashed in parallel on a bounded pool; rows may carry a ready BCrypt hash instead
+ * - Each chunk is loaded with COPY and merged in one statement (see UserImportRepository)
+ * Rows that fail are reported with their row number and reason, the rest of the file is still imported
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserImportRepository userImportRepository;
+    private final AvailabilityService availabilityService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final ThreadPoolExecutor importPool;
+
+    public UserImportService(
+            PasswordEncoder passwordEncoder,
+            UserImportRepository userImportRepository,
+            AvailabilityService availabilityService,
+            ObjectMapper objectMapper,
+            @Value("${app.import.chunk-size:2000}") int chunkSize,
+            @Value("${app.import.threads:0}") int threads,
+            @Value("${app.import.queue-capacity:256}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.userImportRepository = userImportRepository;
+        this.availabilityService = availabilityService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+
+        // 0 = one thread per available core, hashing is pure CPU work
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.importPool = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-import-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A full queue makes the request thread hash the row itself, which throttles reading the file
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * Import all rows of the file
+     * CSV needs a header with userName, email and password or passwordHash; NDJSON has one such object per line
+     * @throws IllegalArgumentException if the CSV header is missing or incomplete
+     */
+    public UserImportReport importUsers(InputStream input, Format format) throws IOException, SQLException {
+        long started = System.currentTimeMillis();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        Map<String, Integer> columns = format == Format.CSV ? readCsvHeader(reader) : null;
+
+        List<UserImportReport.RowError> errors = new ArrayList<>();
+        List<RawRow> chunk = new ArrayList<>(chunkSize);
+        int totalRows = 0;
+        int imported = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            totalRows++;
+            chunk.add(format == Format.CSV ? parseCsvRow(totalRows, line, columns) : parseJsonRow(totalRows, line));
+
+            if (chunk.size() == chunkSize) {
+                imported += importChunk(chunk, errors);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += importChunk(chunk, errors);
+        }
+
+        errors.sort(Comparator.comparingInt(UserImportReport.RowError::row));
+        log.info("Imported {} of {} users in {} ms", imported, totalRows, System.currentTimeMillis() - started);
+        return new UserImportReport(totalRows, imported, totalRows - imported, errors);
+    }
+
+    /**
+     * Validate and hash the chunk in parallel, then load the valid rows
+     * @return number of users inserted
+     */
+    private int importChunk(List<RawRow> chunk, List<UserImportReport.RowError> errors) throws SQLException {
+        List<Future<UserImportRepository.PreparedRow>> pending = new ArrayList<>(chunk.size());
+        for (RawRow row : chunk) {
+            pending.add(importPool.submit(() -> prepare(row)));
+        }
+
+        List<UserImportRepository.PreparedRow> prepared = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                prepared.add(pending.get(i).get());
+            } catch (ExecutionException e) {
+                String reason = e.getCause() instanceof IllegalArgumentException
+                        ? e.getCause().getMessage()
+                        : "Row could not be processed";
+                errors.add(new UserImportReport.RowError(chunk.get(i).rowNumber(), reason));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted");
+            }
+        }
+
+        if (prepared.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, String> outcome = userImportRepository.copyAndMerge(prepared);
+
+        int inserted = 0;
+        for (UserImportRepository.PreparedRow row : prepared) {
+            String error = outcome.get(row.rowNumber());
+            if (error == null) {
+                inserted++;
+                availabilityService.recordTaken(row.userName(), row.email());
+            } else {
+                errors.add(new UserImportReport.RowError(row.rowNumber(), error));
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Same rules as a single registration; a given hash is only checked for BCrypt format
+     */
+    private UserImportRepository.PreparedRow prepare(RawRow row) {
+        if (row.parseError() != null) {
+            throw new IllegalArgumentException(row.parseError());
+        }
+
+        UserService.validateEmail(row.email());
+        UserService.validateUsername(row.userName());
+
+        String passwordHash;
+        if (row.passwordHash() != null && !row.passwordHash().isEmpty()) {
+            if (!BCRYPT_HASH.matcher(row.passwordHash()).matches()) {
+                throw new IllegalArgumentException("passwordHash is not a BCrypt hash");
+            }
+            passwordHash = row.passwordHash();
+        } else {
+            UserService.validatePassword(row.password());
+            passwordHash = passwordEncoder.encode(row.password());
+        }
+
+        return new UserImportRepository.PreparedRow(row.rowNumber(), row.userName(), row.email(), passwordHash);
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        List<String> names = header != null ? parseCsvLine(header) : null;
+        if (names == null) {
+            throw new IllegalArgumentException("CSV header is missing or malformed");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("username") || !columns.containsKey("email")
+                || (!columns.containsKey("password") && !columns.containsKey("passwordhash"))) {
+            throw new IllegalArgumentException("CSV header must contain userName, email and password or passwordHash");
+        }
+        return columns;
+    }
+
+    private RawRow parseCsvRow(int rowNumber, String line, Map<String, Integer> columns) {
+        List<String> values = parseCsvLine(line);
+        if (values == null) {
+            return RawRow.malformed(rowNumber, "Malformed CSV row");
+        }
+        return new RawRow(rowNumber,
+                column(values, columns, "username"),
+                column(values, columns, "email"),
+                column(values, columns, "password"),
+                column(values, columns, "passwordhash"),
+                null);
+    }
+
+    private RawRow parseJsonRow(int rowNumber, String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (!node.isObject()) {
+                return RawRow.malformed(rowNumber, "Row is not a JSON object");
+            }
+            return new RawRow(rowNumber,
+                    text(node, "userName"),
+                    text(node, "email"),
+                    text(node, "password"),
+                    text(node, "passwordHash"),
+                    null);
+        } catch (JsonProcessingException e) {
+            return RawRow.malformed(rowNumber, "Malformed JSON row");
+        }
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < values.size() ? values.get(index) : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    /**
+     * RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes, not line breaks
+     * @return the fields, or null for an unterminated quote
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importPool.shutdown();
+    }
+
+    private record RawRow(int rowNumber, String userName, String email, String password, String passwordHash,
+                          String parseError) {
+
+        static RawRow malformed(int rowNumber, String parseError) {
+            return new RawRow(rowNumber, null, null, null, null, parseError);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.thm_modul.register_user;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Plain JDBC statements for the registration hot path, where one round trip matters more than the entity model
+ */
+@Repository
+public class UserJdbcRepository {
+
+    // No conflict target: a duplicate user_name or email both end in "no row returned" instead of an error
+    private static final String INSERT_USER =
+            "INSERT INTO app_user (user_name, email, password) VALUES (?, ?, ?) " +
+            "ON CONFLICT DO NOTHING RETURNING id";
+
+    // login_identifier holds the lower-cased username and email of every user (kept by trigger)
+    private static final String FIND_TAKEN_IDENTIFIERS =
+            "SELECT identifier FROM login_identifier WHERE identifier IN (lower(?), lower(?))";
+
+    private static final String FIND_ALL_IDENTIFIERS = "SELECT identifier FROM login_identifier";
+
+    private static final String FIND_LATEST_VERSION = "SELECT COALESCE(max(version), 0) FROM app_user";
+
+    // Inserts and username changes take a new version (see 08-user-change-feed.sql)
+    private static final String FIND_IDENTIFIERS_CHANGED_SINCE =
+            "SELECT lower(user_name) AS user_name, lower(email) AS email, version FROM app_user " +
+            "WHERE version > ? ORDER BY version LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserJdbcRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Insert the user in a single statement
+     * @return the new user ID, or null if the username or email is already taken
+     */
+    public Integer insertIfAbsent(String userName, String email, String hashedPassword) {
+        List<Integer> ids = jdbcTemplate.queryForList(INSERT_USER, Integer.class, userName, email, hashedPassword);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Which of the two identifiers are already in use, compared case-insensitively
+     * @return the taken identifiers, lower-cased
+     */
+    public List<String> findTakenIdentifiers(String userName, String email) {
+        return jdbcTemplate.queryForList(FIND_TAKEN_IDENTIFIERS, String.class, userName, email);
+    }
+
+    /**
+     * Stream every lower-cased username and email
+     */
+    public void forEachIdentifier(Consumer<String> consumer) {
+        jdbcTemplate.query(FIND_ALL_IDENTIFIERS, rs -> {
+            consumer.accept(rs.getString("identifier"));
+        });
+    }
+
+    /**
+     * Highest app_user version, 0 for an empty table
+     */
+    public long findLatestVersion() {
+        Long version = jdbcTemplate.queryForObject(FIND_LATEST_VERSION, Long.class);
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * Stream the lower-cased identifiers of users inserted or renamed after the given version, oldest first,
+     * each with the version of its user row
+     * @return the highest version seen, or sinceVersion if nothing changed
+     */
+    public long forEachIdentifierChangedSince(long sinceVersion, int limit, ObjLongConsumer<String> consumer) {
+        long[] latest = {sinceVersion};
+        jdbcTemplate.query(FIND_IDENTIFIERS_CHANGED_SINCE, rs -> {
+            long version = rs.getLong("version");
+            consumer.accept(rs.getString("user_name"), version);
+            consumer.accept(rs.getString("email"), version);
+            latest[0] = Math.max(latest[0], version);
+        }, sinceVersion, limit);
+        return latest[0];
+    }
+}
@@ -3,15 +3,20 @@ package com.thm_modul.register_user;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 @Service
 public class UserService {
 
-    private final UserRepository userRepository;
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final UserJdbcRepository userJdbcRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AvailabilityService availabilityService;
 
     // Email validation pattern
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
@@ -23,17 +28,29 @@ public class UserService {
             "^[a-zA-Z0-9_]{3,50}$"
     );
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
-        this.userRepository = userRepository;
+    public UserService(UserJdbcRepository userJdbcRepository, PasswordEncoder passwordEncoder,
+                       AvailabilityService availabilityService) {
+        this.userJdbcRepository = userJdbcRepository;
         this.passwordEncoder = passwordEncoder;
+        this.availabilityService = availabilityService;
     }
 
     /**
      * Register a new user with comprehensive validation
-     * Now includes email and username validation as requested in TODOs
+     * The insert is a single statement: uniqueness is enforced by the constraints, not by prior checks,
+     * and only a conflict costs a second query to tell which identifier was taken
+     * Not @Transactional on purpose - the statement is atomic and the conflict probe must run after a failed insert
+     * @return ID of the new user
+     */
+    public Integer registerUser(UserRegistrationRequest request) {
+        validateRegistration(request);
+        return createUser(request);
+    }
+
+    /**
+     * Format and strength checks that need no hashing and no database
      */
-    @Transactional
-    public void registerUser(UserRegistrationRequest request) {
+    void validateRegistration(UserRegistrationRequest request) {
         // Validate email format
         validateEmail(request.email());
 
@@ -42,41 +59,62 @@ public class UserService {
 
         // Validate password strength
         validatePassword(request.password());
+    }
+
+    /**
+     * Hash the password and insert the user, for an already validated request
+     * @return ID of the new user
+     * @throws IllegalArgumentException if the email or username is taken
+     * @throws DataIntegrityViolationException for any other constraint violation
+     */
+    Integer createUser(UserRegistrationRequest request) {
+        // Hash the password
+        String hashedPassword = passwordEncoder.encode(request.password());
 
-        // Check if email is already taken
-        if (userRepository.existsByEmail(request.email())) {
-            throw new IllegalArgumentException("Email is already registered");
+        Integer userId;
+        try {
+            userId = userJdbcRepository.insertIfAbsent(request.userName(), request.email(), hashedPassword);
+        } catch (DataIntegrityViolationException e) {
+            // Case-insensitive duplicates are rejected by the login_identifier trigger instead of ON CONFLICT,
+            // other violations (NOT NULL, check, length) are not a taken identifier and must not be reported as one
+            if (!isUniqueViolation(e)) {
+                throw e;
+            }
+            userId = null;
         }
 
-        // Check if username is already taken
-        if (userRepository.existsByUserName(request.userName())) {
-            throw new IllegalArgumentException("Username is already taken");
+        if (userId == null) {
+            throw new IllegalArgumentException(resolveConflictMessage(request));
         }
 
-        try {
-            // Hash the password
-            String hashedPassword = passwordEncoder.encode(request.password());
+        availabilityService.recordTaken(request.userName(), request.email());
+        return userId;
+    }
 
-            // Create user entity
-            User user = User.builder()
-                    .userName(request.userName())
-                    .email(request.email())
-                    .password(hashedPassword)
-                    .build();
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        return e.getMostSpecificCause() instanceof SQLException sqlException
+                && UNIQUE_VIOLATION.equals(sqlException.getSQLState());
+    }
 
-            // Save to database
-            userRepository.save(user);
+    /**
+     * Message for a rejected insert, email first as with the former checks
+     */
+    private String resolveConflictMessage(UserRegistrationRequest request) {
+        List<String> taken = userJdbcRepository.findTakenIdentifiers(request.userName(), request.email());
 
-        } catch (DataIntegrityViolationException e) {
-            // Handle race condition where user might be created between check and save
-            throw new IllegalArgumentException("User with this email or username already exists");
+        if (taken.contains(request.email().toLowerCase(Locale.ROOT))) {
+            return "Email is already registered";
+        }
+        if (taken.contains(request.userName().toLowerCase(Locale.ROOT))) {
+            return "Username is already taken";
         }
+        return "User with this email or username already exists";
     }
 
     /**
      * Validate email format
      */
-    private void validateEmail(String email) {
+    static void validateEmail(String email) {
         if (email == null || email.trim().isEmpty()) {
             throw new IllegalArgumentException("Email cannot be empty");
         }
@@ -93,7 +131,7 @@ public class UserService {
     /**
      * Validate username format and constraints
      */
-    private void validateUsername(String username) {
+    static void validateUsername(String username) {
         if (username == null || username.trim().isEmpty()) {
             throw new IllegalArgumentException("Username cannot be empty");
         }
@@ -107,7 +145,7 @@ public class UserService {
     /**
      * Validate password strength
      */
-    private void validatePassword(String password) {
+    static void validatePassword(String password) {
         if (password == null || password.isEmpty()) {
             throw new IllegalArgumentException("Password cannot be empty");
         }
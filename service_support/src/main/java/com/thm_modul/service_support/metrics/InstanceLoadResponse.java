@@ -0,0 +1,15 @@
+package com.thm_modul.service_support.metrics;
+
+/**
+ * DTO describing the current load of this instance
+ * Polled by the API Gateway for load-aware instance selection
+ */
+public record InstanceLoadResponse(
+        int inFlight,
+        int activeConnections,
+        int maxConnections,
+        int threadsAwaitingConnection,
+        double poolSaturation,
+        long p99LatencyMs,
+        int sampleCount
+) {}
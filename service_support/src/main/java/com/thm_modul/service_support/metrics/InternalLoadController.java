@@ -0,0 +1,74 @@
+package com.thm_modul.service_support.metrics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+
+@RestController
+@RequestMapping("/internal/v1/load")
+@RequiredArgsConstructor
+public class InternalLoadController {
+
+    private final LoadMetricsFilter loadMetrics;
+    private final DataSource dataSource;
+
+    @Value("${app.gateway.secret:shared_secret_key}")
+    private String gatewaySecret;
+
+    /**
+     * Current load of this instance (in-flight requests, connection pool saturation, p99 latency)
+     * Cheap enough to be polled every few seconds by each API Gateway instance
+     */
+    @GetMapping
+    public ResponseEntity<LoadResponse> getLoad(HttpServletRequest request) {
+        if (!gatewaySecret.equals(request.getHeader("X-Gateway-Secret"))) {
+            return ResponseEntity.status(403)
+                    .body(new LoadResponse(false, null, "Forbidden"));
+        }
+
+        int active = 0;
+        int max = 0;
+        int awaiting = 0;
+
+        if (dataSource instanceof HikariDataSource) {
+            HikariDataSource hikari = (HikariDataSource) dataSource;
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            max = hikari.getMaximumPoolSize();
+            if (pool != null) {
+                active = pool.getActiveConnections();
+                awaiting = pool.getThreadsAwaitingConnection();
+            }
+        }
+
+        InstanceLoadResponse load = new InstanceLoadResponse(
+                loadMetrics.getInFlight(),
+                active,
+                max,
+                awaiting,
+                max > 0 ? (double) active / max : 0.0,
+                loadMetrics.getP99LatencyMs(),
+                loadMetrics.getRecentSampleCount()
+        );
+
+        return ResponseEntity.ok(new LoadResponse(true, load, null));
+    }
+
+    /**
+     * Same shape as the services' ApiResponse (success / data / error), which this module cannot depend on
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record LoadResponse(
+            boolean success,
+            InstanceLoadResponse data,
+            String error
+    ) {}
+}
@@ -0,0 +1,14 @@
+package com.thm_modul.service_support.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Adds the load metrics filter and /internal/v1/load to every servlet service depending on this module
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Import({LoadMetricsFilter.class, InternalLoadController.class})
+public class LoadMetricsAutoConfiguration {
+}
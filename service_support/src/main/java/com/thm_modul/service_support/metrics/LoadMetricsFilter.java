@@ -0,0 +1,95 @@
+package com.thm_modul.service_support.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks in-flight requests and recent request latencies for this instance
+ * Published through /internal/v1/load so the API Gateway can route away from degraded instances
+ * Registered in every service that depends on this module (see LoadMetricsAutoConfiguration)
+ */
+@Component
+public class LoadMetricsFilter extends OncePerRequestFilter {
+
+    private static final int SAMPLE_CAPACITY = 1024; // must be a power of two
+    private static final long SAMPLE_WINDOW_MS = 10_000;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong sampleCursor = new AtomicLong();
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLE_CAPACITY);
+    private final AtomicLongArray timestamps = new AtomicLongArray(SAMPLE_CAPACITY);
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        long start = System.nanoTime();
+        inFlight.incrementAndGet();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+            recordLatency((System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * The load endpoint and actuator are polled continuously and must not skew the figures
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.equals("/internal/v1/load") || path.startsWith("/actuator/");
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 99th percentile latency in milliseconds over the samples recorded in the last 10 seconds
+     */
+    public long getP99LatencyMs() {
+        long[] recent = recentSamples();
+        if (recent.length == 0) {
+            return 0;
+        }
+        Arrays.sort(recent);
+        int index = (int) Math.ceil(recent.length * 0.99) - 1;
+        return recent[Math.max(index, 0)];
+    }
+
+    public int getRecentSampleCount() {
+        return recentSamples().length;
+    }
+
+    private void recordLatency(long latencyMs) {
+        int slot = (int) (sampleCursor.getAndIncrement() & (SAMPLE_CAPACITY - 1));
+        latencies.set(slot, latencyMs);
+        timestamps.set(slot, System.currentTimeMillis());
+    }
+
+    private long[] recentSamples() {
+        long cutoff = System.currentTimeMillis() - SAMPLE_WINDOW_MS;
+        long[] buffer = new long[SAMPLE_CAPACITY];
+        int count = 0;
+        for (int i = 0; i < SAMPLE_CAPACITY; i++) {
+            if (timestamps.get(i) >= cutoff) {
+                buffer[count++] = latencies.get(i);
+            }
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+}
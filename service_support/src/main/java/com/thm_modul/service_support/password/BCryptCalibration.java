@@ -0,0 +1,69 @@
+package com.thm_modul.service_support.password;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Offline tool for choosing app.password-hashing.strength
+ * Each cost step doubles the work, so one timed hash at the minimum cost is enough to
+ * extrapolate the highest cost that still stays within the target latency
+ * Run it on the hardware the login / register replicas use, then pin the result in their config:
+ * the services never calibrate themselves, as every replica has to hash with the same cost
+ *
+ * Usage: java -cp service_support.jar:spring-security-crypto.jar \
+ *        com.thm_modul.service_support.password.BCryptCalibration [targetMs]
+ */
+public final class BCryptCalibration {
+
+    public static final int MIN_STRENGTH = 10;
+    public static final int MAX_STRENGTH = 16;
+
+    private static final long DEFAULT_TARGET_MS = 250;
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private BCryptCalibration() {
+    }
+
+    public static void main(String[] args) {
+        long targetMs = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_TARGET_MS;
+        double measuredMs = measureMinStrengthMs();
+        int strength = recommend(measuredMs, targetMs);
+
+        System.out.printf("cost %d takes %.1f ms on this host%n", MIN_STRENGTH, measuredMs);
+        for (int cost = MIN_STRENGTH; cost <= MAX_STRENGTH; cost++) {
+            System.out.printf("  cost %d ~ %d ms%n", cost, estimateMs(measuredMs, cost));
+        }
+        System.out.printf("recommended app.password-hashing.strength for a %d ms target: %d%n", targetMs, strength);
+    }
+
+    /**
+     * Best of two timed hashes at cost 10, after a short JIT warm-up
+     */
+    public static double measureMinStrengthMs() {
+        for (int i = 0; i < 3; i++) {
+            BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(4));
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(SAMPLE_PASSWORD, BCrypt.gensalt(MIN_STRENGTH));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return Math.max(best / 1_000_000.0, 0.001);
+    }
+
+    /**
+     * Highest strength whose hashing time stays within targetMs, never below the library default of 10
+     */
+    public static int recommend(double minStrengthMs, long targetMs) {
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH && estimateMs(minStrengthMs, strength + 1) <= targetMs) {
+            strength++;
+        }
+        return strength;
+    }
+
+    private static long estimateMs(double minStrengthMs, int strength) {
+        return Math.round(minStrengthMs * (1L << (strength - MIN_STRENGTH)));
+    }
+}